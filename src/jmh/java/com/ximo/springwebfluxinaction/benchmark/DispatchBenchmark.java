@@ -0,0 +1,109 @@
+package com.ximo.springwebfluxinaction.benchmark;
+
+import com.ximo.springwebfluxinaction.SpringWebfluxInActionApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+
+/**
+ * 不经过网络, 直接调用 {@link HttpHandler}, 比较 RouterFunction 和 @RestController 的分发开销
+ * <p>
+ * 两边是只在这里注册的等价端点: 都在 /flux/** 之外, 不需要认证, 不经过响应缓存, 返回同一个字符串;
+ * 两边都经过同样的 web filter (包括放行的 security filter chain) 和编码, 差别只剩分发
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final String BODY = "hello webflux dispatch";
+
+    private ConfigurableApplicationContext context;
+
+    private HttpHandler httpHandler;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringWebfluxInActionApplication.class)
+                .initializers((GenericApplicationContext applicationContext) -> {
+                    applicationContext.registerBean("dispatchBenchmarkRouterFunction", RouterFunction.class,
+                            () -> route(GET("/dispatch/router"), request -> ok().body(Mono.just(BODY), String.class)));
+                    applicationContext.registerBean(DispatchController.class);
+                })
+                .properties("server.port=0", "logging.level.root=warn")
+                .run();
+        httpHandler = context.getBean(HttpHandler.class);
+        // 有一边没注册上或者被拦住了, 比出来的就不是分发开销
+        if (routerFunction() != HttpStatus.OK || restController() != HttpStatus.OK) {
+            throw new IllegalStateException("dispatch benchmark endpoints are not reachable");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HttpStatus routerFunction() {
+        return handle("/dispatch/router");
+    }
+
+    @Benchmark
+    public HttpStatus restController() {
+        return handle("/dispatch/controller");
+    }
+
+    private HttpStatus handle(String path) {
+        final MockServerHttpResponse response = new MockServerHttpResponse();
+        httpHandler.handle(MockServerHttpRequest.get(path).build(), response).block();
+        response.getBodyAsString().block();
+        return response.getStatusCode();
+    }
+
+    /**
+     * 和 dispatchBenchmarkRouterFunction 等价的注解端点; 不用 @RestController, 免得被组件扫描重复注册
+     */
+    @RequestMapping("/dispatch")
+    public static class DispatchController {
+
+        @ResponseBody
+        @GetMapping("/controller")
+        public Mono<String> controller() {
+            return Mono.just(BODY);
+        }
+    }
+
+}
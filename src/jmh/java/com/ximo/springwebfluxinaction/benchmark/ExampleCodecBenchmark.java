@@ -0,0 +1,161 @@
+package com.ximo.springwebfluxinaction.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Decoder;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_NDJSON;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_SMILE;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_STREAM_SMILE;
+
+/**
+ * {@link ExampleDTO} 用 spring 的 jackson codec 编解码的吞吐, 单位是每秒处理多少批, json 和 smile 对比
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExampleCodecBenchmark {
+
+    private static final ResolvableType EXAMPLE_TYPE = ResolvableType.forClass(ExampleDTO.class);
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    private Jackson2JsonEncoder jsonEncoder;
+
+    private Jackson2JsonEncoder ndjsonEncoder;
+
+    private Jackson2JsonDecoder decoder;
+
+    private Jackson2SmileEncoder smileEncoder;
+
+    private Jackson2SmileDecoder smileDecoder;
+
+    private List<ExampleDTO> examples;
+
+    private byte[] jsonArray;
+
+    private byte[] ndjson;
+
+    private byte[] smileStream;
+
+    @Setup
+    public void setUp() throws Exception {
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jsonEncoder = new Jackson2JsonEncoder(objectMapper);
+        ndjsonEncoder = new Jackson2JsonEncoder(objectMapper, APPLICATION_NDJSON);
+        ndjsonEncoder.setStreamingMediaTypes(Collections.singletonList(APPLICATION_NDJSON));
+        decoder = new Jackson2JsonDecoder(objectMapper, MediaType.APPLICATION_JSON, APPLICATION_NDJSON);
+
+        examples = IntStream.range(0, size)
+                .mapToObj(i -> new ExampleDTO(i, "name" + i))
+                .collect(Collectors.toList());
+        jsonArray = objectMapper.writeValueAsBytes(examples);
+        final StringBuilder lines = new StringBuilder();
+        for (ExampleDTO example : examples) {
+            lines.append(objectMapper.writeValueAsString(example)).append('\n');
+        }
+        ndjson = lines.toString().getBytes();
+
+        final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+        smileEncoder = new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE);
+        smileDecoder = new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE);
+        smileStream = DataBufferUtils.join(smileEncoder.encode(Flux.fromIterable(examples), bufferFactory,
+                EXAMPLE_TYPE, APPLICATION_STREAM_SMILE, Collections.emptyMap()))
+                .map(buffer -> {
+                    final byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .block();
+    }
+
+    @Benchmark
+    public void encodeJsonArray(Blackhole blackhole) {
+        encode(jsonEncoder, MediaType.APPLICATION_JSON, blackhole);
+    }
+
+    @Benchmark
+    public void encodeNdjson(Blackhole blackhole) {
+        encode(ndjsonEncoder, APPLICATION_NDJSON, blackhole);
+    }
+
+    @Benchmark
+    public void encodeSmileStream(Blackhole blackhole) {
+        encode(smileEncoder, APPLICATION_STREAM_SMILE, blackhole);
+    }
+
+    @Benchmark
+    public List<ExampleDTO> decodeJsonArray() {
+        return decode(decoder, jsonArray, MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public List<ExampleDTO> decodeNdjson() {
+        return decode(decoder, ndjson, APPLICATION_NDJSON);
+    }
+
+    @Benchmark
+    public List<ExampleDTO> decodeSmileStream() {
+        return decode(smileDecoder, smileStream, APPLICATION_STREAM_SMILE);
+    }
+
+    private void encode(AbstractJackson2Encoder encoder, MediaType mediaType, Blackhole blackhole) {
+        encoder.encode(Flux.fromIterable(examples), bufferFactory, EXAMPLE_TYPE, mediaType, Collections.emptyMap())
+                .doOnNext(buffer -> {
+                    blackhole.consume(buffer.readableByteCount());
+                    DataBufferUtils.release(buffer);
+                })
+                .blockLast();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ExampleDTO> decode(AbstractJackson2Decoder decoder, byte[] body, MediaType mediaType) {
+        return decoder.decode(Flux.defer(() -> Flux.just(bufferFactory.wrap(body))), EXAMPLE_TYPE, mediaType,
+                Collections.emptyMap())
+                .map(ExampleDTO.class::cast)
+                .collectList()
+                .block();
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.ximo.springwebfluxinaction.benchmark;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.store.ExampleStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 堆外的 {@link ExampleStore} 和堆上的 ConcurrentSkipListMap 比较按 id 查找和扫描 1000 条的耗时;
+ * 加 -prof gc 可以看到两边每次操作分配的字节数差不多 (都要生成 ExampleDTO), 区别在常驻的堆大小
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ExampleStoreBenchmark {
+
+    private static final int SCAN = 1000;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private ExampleStore store;
+
+    private ConcurrentSkipListMap<Integer, ExampleDTO> heap;
+
+    @Setup
+    public void setUp() {
+        store = new ExampleStore("benchmark", 1024, 64 * 1024);
+        heap = new ConcurrentSkipListMap<>();
+        final List<ExampleDTO> batch = new ArrayList<>(1000);
+        for (int id = 0; id < size; id++) {
+            final ExampleDTO example = new ExampleDTO(id, "name" + id);
+            heap.put(id, example);
+            batch.add(example);
+            if (batch.size() == 1000) {
+                store.putAll(batch);
+                batch.clear();
+            }
+        }
+        store.putAll(batch);
+    }
+
+    @Benchmark
+    public ExampleDTO storeGet() {
+        return store.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public ExampleDTO heapGet() {
+        return heap.get(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public ExampleDTO storeScan() {
+        return store.findAfter(ThreadLocalRandom.current().nextInt(size - SCAN), SCAN).blockLast();
+    }
+
+    @Benchmark
+    public ExampleDTO heapScan() {
+        return Flux.fromIterable(heap.tailMap(ThreadLocalRandom.current().nextInt(size - SCAN), false).values())
+                .take(SCAN)
+                .blockLast();
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.ximo.springwebfluxinaction.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReactiveTest#tetFluxBufferAndFlatMap 里那几种写法的开销, 不同数据量和线程模型下各跑一遍
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    @Param({"immediate", "parallel"})
+    private String scheduler;
+
+    private Scheduler innerScheduler;
+
+    @Setup
+    public void setUp() {
+        innerScheduler = "parallel".equals(scheduler) ? Schedulers.parallel() : Schedulers.immediate();
+    }
+
+    @Benchmark
+    public Integer map() {
+        return Flux.range(0, size)
+                .map(i -> i * 2)
+                .subscribeOn(innerScheduler)
+                .blockLast();
+    }
+
+    @Benchmark
+    public Integer flatMap() {
+        return Flux.range(0, size)
+                .flatMap(i -> Flux.just(i * 2))
+                .subscribeOn(innerScheduler)
+                .blockLast();
+    }
+
+    @Benchmark
+    public Integer concatMap() {
+        return Flux.range(0, size)
+                .concatMap(i -> Flux.just(i * 2))
+                .subscribeOn(innerScheduler)
+                .blockLast();
+    }
+
+    /**
+     * 和 tetFluxBufferAndFlatMap 一样, 每批在 scheduler 上并行处理
+     */
+    @Benchmark
+    public Integer bufferFlatMap() {
+        return Flux.range(0, size)
+                .buffer(256)
+                .flatMap(list -> Flux.fromIterable(list)
+                        .map(i -> i * 2)
+                        .subscribeOn(innerScheduler))
+                .blockLast();
+    }
+
+}
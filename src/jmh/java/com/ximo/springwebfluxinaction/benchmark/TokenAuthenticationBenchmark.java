@@ -0,0 +1,63 @@
+package com.ximo.springwebfluxinaction.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ximo.springwebfluxinaction.security.CachingTokenAuthenticationManager;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import com.ximo.springwebfluxinaction.security.TokenAuthentication;
+import com.ximo.springwebfluxinaction.security.TokenClaims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求的认证开销: 命中缓存, 和每次都验签解析
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenAuthenticationBenchmark {
+
+    private HmacTokenCodec codec;
+
+    private CachingTokenAuthenticationManager manager;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        codec = new HmacTokenCodec("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII),
+                "benchmark", Duration.ZERO, new ObjectMapper());
+        manager = new CachingTokenAuthenticationManager(codec, 10_000, Duration.ofMinutes(5));
+        token = codec.issue("benchmark", Collections.singletonList("USER"), Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public Authentication cached() {
+        return manager.authenticate(TokenAuthentication.unauthenticated(token)).block();
+    }
+
+    @Benchmark
+    public TokenClaims verify() {
+        return codec.verify(token);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.ximo.springwebfluxinaction.benchmark;
+
+import com.ximo.springwebfluxinaction.SpringWebfluxInActionApplication;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同样的 /example 数据, 响应式写法 (/flux/example) 和阻塞写法跑在 handler 线程池上 (/flux/blocking/example) 的对比
+ * <p>
+ * 多线程并发调用 {@link HttpHandler}, 差别主要是切线程和先生成整个列表的开销;
+ * jdk 21+ 上 handler 线程池是虚拟线程, jdk 8 上是平台线程:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="VirtualThreadBenchmark"
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    @Param({"10", "1000"})
+    private int count;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpHandler httpHandler;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringWebfluxInActionApplication.class)
+                .properties("server.port=0", "logging.level.root=warn", "webflux.admission.enabled=false")
+                .run();
+        httpHandler = context.getBean(HttpHandler.class);
+        authorization = "Bearer " + context.getBean(HmacTokenCodec.class)
+                .issue("benchmark", Collections.singletonList("USER"), Duration.ofHours(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HttpStatus reactive() {
+        return handle("/flux/example?count=" + count);
+    }
+
+    @Benchmark
+    public HttpStatus blocking() {
+        return handle("/flux/blocking/example?count=" + count);
+    }
+
+    private HttpStatus handle(String uri) {
+        final MockServerHttpResponse response = new MockServerHttpResponse();
+        httpHandler.handle(MockServerHttpRequest.get(uri)
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .accept(MediaType.APPLICATION_JSON)
+                .build(), response).block();
+        response.getBodyAsString().block();
+        return response.getStatusCode();
+    }
+
+}
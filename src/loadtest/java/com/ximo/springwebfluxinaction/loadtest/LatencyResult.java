@@ -0,0 +1,83 @@
+package com.ximo.springwebfluxinaction.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+
+/**
+ * 一个接口一轮压测的结果, 直方图单位是微秒
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Getter
+@AllArgsConstructor
+public class LatencyResult {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final String path;
+
+    private final int rate;
+
+    private final Duration elapsed;
+
+    private final long sent;
+
+    private final long errors;
+
+    /**
+     * 超过 max-in-flight 没有发送的请求数, 按超时时间记在 corrected 里
+     */
+    private final long dropped;
+
+    /**
+     * 从计划发送时间算起, 已经修正了 coordinated omission, 包括丢弃的请求
+     */
+    private final Histogram corrected;
+
+    /**
+     * 从实际发送时间算起, 只用来和 corrected 对比
+     */
+    private final Histogram uncorrected;
+
+    /**
+     * 实际完成的请求数 / 秒, 不含丢弃的
+     */
+    public double throughput() {
+        return (corrected.getTotalCount() - dropped) * 1000.0 / Math.max(1, elapsed.toMillis());
+    }
+
+    /**
+     * dropped 紧挨着 p99 和 p99.9, 百分位里有多少是按超时记的丢弃请求一眼就能看到
+     */
+    public static void printHeader(PrintStream out) {
+        out.printf("%-18s %7s %9s %9s %7s %10s %9s %9s %9s %7s %9s%n", "path", "rate", "sent", "ok", "errors",
+                "rps", "p50(ms)", "p99(ms)", "p99.9(ms)", "dropped", "max(ms)");
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-18s %7d %9d %9d %7d %10.1f %9.2f %9.2f %9.2f %7d %9.2f%n", path, rate, sent,
+                corrected.getTotalCount() - dropped - errors, errors, throughput(),
+                millis(corrected, 50), millis(corrected, 99), millis(corrected, 99.9), dropped,
+                corrected.getMaxValue() / MICROS_PER_MILLI);
+        out.printf("%-18s %7s %9s %9s %7s %10s %9.2f %9.2f %9.2f %7s %9.2f%n", "  (uncorrected)", "", "", "", "", "",
+                millis(uncorrected, 50), millis(uncorrected, 99), millis(uncorrected, 99.9), "",
+                uncorrected.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    /**
+     * HdrHistogram 的标准 percentile 分布格式, 可以直接丢到 HistogramPlotter 里看
+     */
+    public void writeDistribution(PrintStream out) {
+        corrected.outputPercentileDistribution(out, MICROS_PER_MILLI);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.ximo.springwebfluxinaction.loadtest;
+
+import com.ximo.springwebfluxinaction.SpringWebfluxInActionApplication;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 压测入口: 随机端口起应用, 按顺序对每个接口先预热再正式压, 最后打印 p50/p99/p99.9 和吞吐
+ * <p>
+ * 客户端用独立的连接池和 event loop, 不和服务端抢线程; 结果里同时给出修正前后的延迟, 差得越多说明排队越严重
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws IOException {
+        final LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+        final int port = freePort();
+        final String baseUrl = "http://localhost:" + port;
+
+        // /flux/webclient 会回调自己, 所以 base-url 要跟着随机端口走; 用命令行参数是为了盖过 application.yml
+        final List<String> applicationArgs = new ArrayList<>(Arrays.asList(args));
+        applicationArgs.add("--server.port=" + port);
+        applicationArgs.add("--webflux.client.base-url=" + baseUrl);
+        applicationArgs.add("--logging.level.root=warn");
+        // 压测只有一个来源 ip, 测的是接口本身而不是准入控制
+        applicationArgs.add("--webflux.admission.enabled=false");
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringWebfluxInActionApplication.class)
+                .run(applicationArgs.toArray(new String[0]));
+
+        final LoopResources loopResources = LoopResources.create("loadtest", LoopResources.DEFAULT_IO_WORKER_COUNT, true);
+        final ConnectionProvider connectionProvider = ConnectionProvider.builder("loadtest")
+                .maxConnections(options.getConnections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(options.getTimeout())
+                .build();
+        final HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .runOn(loopResources)
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2000)
+                        .option(ChannelOption.TCP_NODELAY, true));
+        // /flux/** 需要 token, 整个压测用同一个, 认证走的是缓存命中的路径
+        final String token = context.getBean(HmacTokenCodec.class)
+                .issue("loadtest", Collections.singletonList("USER"), Duration.ofHours(1));
+        final WebClient webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        final OpenModelLoadGenerator generator = new OpenModelLoadGenerator(webClient, options);
+        final List<LatencyResult> results = new ArrayList<>();
+        try {
+            for (String path : options.getPaths()) {
+                System.out.printf("%s: warmup %s, then %s at %d rps%n", path, options.getWarmup(),
+                        options.getDuration(), options.getRate());
+                if (!options.getWarmup().isZero()) {
+                    generator.run(path, options.getWarmup());
+                }
+                final LatencyResult result = generator.run(path, options.getDuration());
+                results.add(result);
+                writeDistribution(options.getOutput(), result);
+            }
+        } finally {
+            connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+            loopResources.disposeLater().block(Duration.ofSeconds(5));
+            context.close();
+        }
+
+        System.out.println();
+        LatencyResult.printHeader(System.out);
+        results.forEach(result -> result.print(System.out));
+    }
+
+    private static void writeDistribution(String output, LatencyResult result) throws IOException {
+        if (output == null || output.isEmpty()) {
+            return;
+        }
+        final File directory = new File(output);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("cannot create " + directory);
+        }
+        final String name = result.getPath().replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_", "");
+        try (PrintStream out = new PrintStream(new File(directory, name + ".hgrm"), "UTF-8")) {
+            result.writeDistribution(out);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
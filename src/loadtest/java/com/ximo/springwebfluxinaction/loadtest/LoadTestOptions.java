@@ -0,0 +1,71 @@
+package com.ximo.springwebfluxinaction.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 压测参数, 全部从 -Dloadtest.* 系统属性读
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+public class LoadTestOptions {
+
+    /**
+     * 要压的接口, 逗号分隔, 按顺序一个一个压
+     */
+    private List<String> paths;
+
+    /**
+     * 每个接口每秒发出的请求数, 到点就发, 不等上一个返回
+     */
+    private int rate;
+
+    private Duration warmup;
+
+    private Duration duration;
+
+    /**
+     * 单个请求的超时, 超时算错误
+     */
+    private Duration timeout;
+
+    /**
+     * 客户端连接池大小
+     */
+    private int connections;
+
+    /**
+     * 在途请求上限, 超过了不发送, 算 dropped 并按 timeout 记进延迟, 防止服务端卡住时把压测机内存撑爆
+     */
+    private int maxInFlight;
+
+    /**
+     * .hgrm 输出目录, 为空不输出
+     */
+    private String output;
+
+    public static LoadTestOptions fromSystemProperties() {
+        final LoadTestOptions options = new LoadTestOptions();
+        options.setPaths(Arrays.asList(System.getProperty("loadtest.paths",
+                "/flux/example,/example,/flux/webclient").split(",")));
+        options.setRate(Integer.getInteger("loadtest.rate", 1000));
+        options.setWarmup(duration("loadtest.warmup", "5s"));
+        options.setDuration(duration("loadtest.duration", "30s"));
+        options.setTimeout(duration("loadtest.timeout", "10s"));
+        options.setConnections(Integer.getInteger("loadtest.connections", 500));
+        options.setMaxInFlight(Integer.getInteger("loadtest.max-in-flight", 50000));
+        options.setOutput(System.getProperty("loadtest.output"));
+        return options;
+    }
+
+    private static Duration duration(String key, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(key, defaultValue));
+    }
+
+}
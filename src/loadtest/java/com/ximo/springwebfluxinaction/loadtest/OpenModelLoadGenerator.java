@@ -0,0 +1,108 @@
+package com.ximo.springwebfluxinaction.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Recorder;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型压测: 按固定速率计划每个请求的发送时间, 到点就发, 不管前面的请求有没有返回
+ * <p>
+ * 服务端变慢时发送线程可能落后于计划, 这时会连着补发; 延迟一律从计划时间开始算,
+ * 这样排队等待的时间也算进去, 不会出现 coordinated omission (服务端越慢采样越少, p99 反而好看)
+ * <p>
+ * 在途请求超过 max-in-flight 时不再发送, 但按超时时间记进修正后的直方图, 丢弃的请求同样算进百分位
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Slf4j
+public class OpenModelLoadGenerator {
+
+    private final WebClient webClient;
+
+    private final LoadTestOptions options;
+
+    public OpenModelLoadGenerator(WebClient webClient, LoadTestOptions options) {
+        this.webClient = webClient;
+        this.options = options;
+    }
+
+    public LatencyResult run(String path, Duration duration) {
+        final Recorder corrected = new Recorder(3);
+        final Recorder uncorrected = new Recorder(3);
+        final LongAdder errors = new LongAdder();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+
+        long sent = 0;
+        long dropped = 0;
+        final long start = System.nanoTime();
+        final long end = start + duration.toNanos();
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            if (inFlight.incrementAndGet() > options.getMaxInFlight()) {
+                inFlight.decrementAndGet();
+                // 不记的话服务端越慢丢得越多, 又回到了 coordinated omission; 真发出去最多也就等到超时
+                corrected.recordValue(micros(options.getTimeout().toNanos()));
+                dropped++;
+                continue;
+            }
+            sent++;
+            send(path, intended, now, corrected, uncorrected, errors, inFlight);
+        }
+
+        // 等在途的请求结束, 超时的会由 timeout 结束
+        final long drainDeadline = System.nanoTime() + options.getTimeout().toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (inFlight.get() > 0) {
+            log.warn("{} requests to {} still in flight after drain", inFlight.get(), path);
+        }
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return new LatencyResult(path, options.getRate(), elapsed, sent, errors.sum(), dropped,
+                corrected.getIntervalHistogram(), uncorrected.getIntervalHistogram());
+    }
+
+    private void send(String path, long intended, long actual, Recorder corrected, Recorder uncorrected,
+                      LongAdder errors, AtomicInteger inFlight) {
+        webClient.get()
+                .uri(path)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .flatMap(response -> response.toBodilessEntity())
+                .timeout(options.getTimeout())
+                .subscribe(entity -> {
+                    if (!entity.getStatusCode().is2xxSuccessful()) {
+                        errors.increment();
+                    }
+                    record(intended, actual, corrected, uncorrected);
+                    inFlight.decrementAndGet();
+                }, e -> {
+                    errors.increment();
+                    record(intended, actual, corrected, uncorrected);
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private static void record(long intended, long actual, Recorder corrected, Recorder uncorrected) {
+        final long now = System.nanoTime();
+        corrected.recordValue(micros(now - intended));
+        uncorrected.recordValue(micros(now - actual));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.ximo.springwebfluxinaction.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ximo.springwebfluxinaction.SpringWebfluxInActionApplication;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冷启动基准: 每次起一个新的 jvm, 从启动进程到第一个请求 (GET /flux/example, 带 token) 成功的时间,
+ * 按配置 (spring profile x 是否用 cds 归档) 各跑几次, 打印最小/中位/最大值
+ * <p>
+ * 应用从 jar 启动 (类路径是瘦 jar 加依赖目录, cds 不归档目录里的类), 参数全部从 -Dstartup.* 读:
+ * <ul>
+ * <li>startup.jar, startup.lib: 应用的瘦 jar 和依赖目录, 由 loadtest profile 在 package 时生成</li>
+ * <li>startup.profiles: 要比较的 spring profile, 逗号分隔, default 表示不指定</li>
+ * <li>startup.runs: 每个配置跑几次</li>
+ * <li>startup.cds: 动态 cds 归档的路径 (jdk 13+), 不存在时先用 fast-startup 跑一次训练生成; 为空不用 cds</li>
+ * <li>startup.jvm-args: 额外的 jvm 参数, 空格分隔, 比如 -XX:TieredStopAtLevel=1</li>
+ * <li>startup.output: 子进程的日志目录</li>
+ * </ul>
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class StartupBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    private final List<String> classpath;
+
+    private final List<String> jvmArgs;
+
+    private final File output;
+
+    private final String secret;
+
+    private final String token;
+
+    private StartupBenchmark(List<String> classpath, List<String> jvmArgs, File output) {
+        this.classpath = classpath;
+        this.jvmArgs = jvmArgs;
+        this.output = output;
+        final byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.secret = Base64.getEncoder().encodeToString(key);
+        this.token = new HmacTokenCodec(key, "spring-webflux-in-action", Duration.ofSeconds(30), new ObjectMapper())
+                .issue("startup", Collections.singletonList("USER"), Duration.ofHours(1));
+    }
+
+    public static void main(String[] args) throws Exception {
+        final File output = new File(System.getProperty("startup.output", "target/startup"));
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("cannot create " + output);
+        }
+        final String jvmArgs = System.getProperty("startup.jvm-args", "").trim();
+        final StartupBenchmark benchmark = new StartupBenchmark(classpath(), jvmArgs.isEmpty()
+                ? Collections.emptyList() : Arrays.asList(jvmArgs.split("\\s+")), output);
+        final List<String> profiles = Arrays.asList(System.getProperty("startup.profiles", "default,fast-startup")
+                .split(","));
+        final int runs = Integer.getInteger("startup.runs", 5);
+
+        final List<String> archives = new ArrayList<>(Collections.singletonList(null));
+        final String cds = System.getProperty("startup.cds", "");
+        if (!cds.isEmpty()) {
+            if (!supportsDynamicArchive()) {
+                System.out.println("cds: dynamic archive needs jdk 13+, skipped on " + System.getProperty("java.version"));
+            } else {
+                final File archive = new File(cds);
+                if (!archive.isFile()) {
+                    System.out.println("cds: training run with fast-startup, archive " + archive);
+                    benchmark.run("fast-startup", "-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath(), "cds-training");
+                }
+                archives.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            }
+        }
+
+        final List<String> rows = new ArrayList<>();
+        for (String profile : profiles) {
+            for (String archive : archives) {
+                final String name = profile + (archive == null ? "" : " +cds");
+                final long[] millis = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    millis[i] = benchmark.run(profile, archive, name.replace(' ', '_') + "-" + i);
+                    System.out.printf("%s: run %d, first request after %d ms%n", name, i, millis[i]);
+                }
+                Arrays.sort(millis);
+                if (runs > 0) {
+                    rows.add(String.format("%-24s %8d %8d %8d", name, millis[0], millis[runs / 2], millis[runs - 1]));
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-24s %8s %8s %8s%n", "time to first request", "min ms", "p50 ms", "max ms");
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * @return 从启动进程到第一个请求成功的毫秒数
+     */
+    private long run(String profile, String archive, String logName) throws Exception {
+        final int port = freePort();
+        final List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(jvmArgs);
+        if (archive != null) {
+            command.add(archive);
+        }
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classpath));
+        command.add(SpringWebfluxInActionApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--webflux.client.base-url=http://localhost:" + port);
+        command.add("--webflux.security.token.secret=" + secret);
+        command.add("--logging.level.root=warn");
+        if (!"default".equals(profile)) {
+            command.add("--spring.profiles.active=" + profile);
+        }
+
+        final File log = new File(output, logName + ".log");
+        final long start = System.nanoTime();
+        final Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            awaitFirstRequest(process, new URL("http://localhost:" + port + "/flux/example?count=1"));
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            // SIGTERM, 正常退出时才会写出 cds 归档
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void awaitFirstRequest(Process process, URL url) throws Exception {
+        final long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("application exited with " + process.exitValue());
+            }
+            try {
+                final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setConnectTimeout(100);
+                connection.setReadTimeout((int) TIMEOUT.toMillis());
+                connection.setRequestProperty("Authorization", "Bearer " + token);
+                final int status = connection.getResponseCode();
+                connection.disconnect();
+                if (status == HttpURLConnection.HTTP_OK) {
+                    return;
+                }
+                throw new IllegalStateException("first request failed with " + status);
+            } catch (IOException e) {
+                // 还没开始监听
+                Thread.sleep(5);
+            }
+        }
+        throw new IllegalStateException("no response within " + TIMEOUT);
+    }
+
+    private static List<String> classpath() {
+        final String jar = System.getProperty("startup.jar");
+        final File lib = new File(System.getProperty("startup.lib", ""));
+        final File[] jars = lib.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jar == null || jars == null) {
+            throw new IllegalArgumentException("-Dstartup.jar and -Dstartup.lib are required, "
+                    + "run with mvn -Ploadtest package exec:exec@startup");
+        }
+        // cds 要求运行时的类路径和生成归档时一致
+        Arrays.sort(jars);
+        final List<String> classpath = new ArrayList<>();
+        classpath.add(new File(jar).getAbsolutePath());
+        for (File file : jars) {
+            classpath.add(file.getAbsolutePath());
+        }
+        return classpath;
+    }
+
+    private static boolean supportsDynamicArchive() {
+        final String version = System.getProperty("java.specification.version");
+        return !version.startsWith("1.") && Integer.parseInt(version) >= 13;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
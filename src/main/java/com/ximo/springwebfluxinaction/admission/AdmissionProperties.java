@@ -0,0 +1,94 @@
+package com.ximo.springwebfluxinaction.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 不做准入控制的路径, PathPattern 格式
+     */
+    private List<String> excludePaths = new ArrayList<>(Collections.singletonList("/actuator/**"));
+
+    /**
+     * 用来区分客户端的请求头, 只在网关会覆盖这个头时配置; 为空或请求里没有时按来源 ip 区分
+     */
+    private String clientIdHeader = "";
+
+    /**
+     * 每个客户端每秒的请求数, 超出返回 429
+     */
+    private double clientPermitsPerSecond = 5000;
+
+    private int clientBurst = 10000;
+
+    /**
+     * 最多记住多少个客户端的令牌桶
+     */
+    private long maxClients = 100_000;
+
+    /**
+     * 客户端多久没有请求就丢掉它的令牌桶
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 按路由的总请求速率, 超出返回 503, 按顺序取第一个匹配的
+     */
+    private List<RouteLimit> routes = new ArrayList<>();
+
+    /**
+     * 自适应并发上限
+     */
+    private Concurrency concurrency = new Concurrency();
+
+    /**
+     * 并发满了时让客户端多久之后重试
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    @Data
+    public static class RouteLimit {
+
+        private String pattern;
+
+        private double permitsPerSecond;
+
+        private int burst;
+
+    }
+
+    @Data
+    public static class Concurrency {
+
+        private boolean enabled = true;
+
+        private int initialLimit = 200;
+
+        private int minLimit = 20;
+
+        private int maxLimit = 2000;
+
+        private double smoothing = 0.2;
+
+        /**
+         * 长期平均延迟覆盖的请求数
+         */
+        private int window = 600;
+
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.ximo.springwebfluxinaction.admission;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 准入控制, 依次检查:
+ * <ol>
+ * <li>客户端的令牌桶, 超出返回 429</li>
+ * <li>路由的令牌桶, 超出返回 503</li>
+ * <li>自适应并发上限, 超出返回 503</li>
+ * </ol>
+ * 拒绝时直接写空响应并带上 Retry-After, 不排队也不进 handler; 被拒绝的请求计入 webflux.admission.rejected.
+ * 内部调用 (见构造参数 internal) 三项都不检查: 它是某个已经准入的请求派生出来的, 再算一次会让同一个请求占两个名额,
+ * 所有回调又都来自 127.0.0.1, 会挤在同一个客户端令牌桶里
+ * <p>
+ * 并发上限按响应开始写出 (提交响应头) 的时间计算延迟, 流式接口的传输时间不算在内;
+ * 同样, ndjson/sse 这类流式响应在提交响应头时就归还名额, 不会在整个连接期间一直占着
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class AdmissionWebFilter implements WebFilter {
+
+    private static final List<MediaType> STREAMING_MEDIA_TYPES = Arrays.asList(MediaType.TEXT_EVENT_STREAM,
+            MediaType.APPLICATION_STREAM_JSON, new MediaType("application", "x-ndjson"));
+
+    private final List<PathPattern> excludePaths;
+
+    private final Predicate<ServerHttpRequest> internal;
+
+    @Nullable
+    private final String clientIdHeader;
+
+    private final LoadingCache<String, TokenBucket> clientBuckets;
+
+    private final List<RouteBucket> routeBuckets;
+
+    @Nullable
+    private final GradientConcurrencyLimiter limiter;
+
+    private final long retryAfterSeconds;
+
+    private final Counter clientRejected;
+
+    private final Counter routeRejected;
+
+    private final Counter concurrencyRejected;
+
+    public AdmissionWebFilter(AdmissionProperties properties, MeterRegistry registry) {
+        this(properties, registry, request -> false);
+    }
+
+    /**
+     * @param internal 判断是否为内部调用, 是的话直接放行
+     */
+    public AdmissionWebFilter(AdmissionProperties properties, MeterRegistry registry,
+                              Predicate<ServerHttpRequest> internal) {
+        final PathPatternParser parser = new PathPatternParser();
+        this.excludePaths = properties.getExcludePaths().stream()
+                .map(parser::parse)
+                .collect(Collectors.toList());
+        this.internal = internal;
+        this.clientIdHeader = StringUtils.hasText(properties.getClientIdHeader()) ? properties.getClientIdHeader() : null;
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout())
+                .build(client -> new TokenBucket(properties.getClientPermitsPerSecond(), properties.getClientBurst()));
+        this.routeBuckets = properties.getRoutes().stream()
+                .map(route -> new RouteBucket(parser.parse(route.getPattern()),
+                        new TokenBucket(route.getPermitsPerSecond(), route.getBurst())))
+                .collect(Collectors.toList());
+        final AdmissionProperties.Concurrency concurrency = properties.getConcurrency();
+        this.limiter = concurrency.isEnabled() ? new GradientConcurrencyLimiter(concurrency.getInitialLimit(),
+                concurrency.getMinLimit(), concurrency.getMaxLimit(), concurrency.getSmoothing(),
+                concurrency.getWindow()) : null;
+        this.retryAfterSeconds = toRetryAfterSeconds(properties.getRetryAfter().toNanos());
+
+        this.clientRejected = rejectedCounter(registry, "client");
+        this.routeRejected = rejectedCounter(registry, "route");
+        this.concurrencyRejected = rejectedCounter(registry, "concurrency");
+        if (limiter != null) {
+            Gauge.builder("webflux.admission.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                    .description("current adaptive concurrency limit")
+                    .register(registry);
+            Gauge.builder("webflux.admission.in.flight", limiter, GradientConcurrencyLimiter::getInFlight)
+                    .description("requests admitted and not yet completed")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (PathPattern excludePath : excludePaths) {
+            if (excludePath.matches(path)) {
+                return chain.filter(exchange);
+            }
+        }
+        if (internal.test(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+
+        long wait = clientBuckets.get(clientId(exchange.getRequest())).tryAcquire();
+        if (wait > 0) {
+            clientRejected.increment();
+            return reject(exchange.getResponse(), HttpStatus.TOO_MANY_REQUESTS, toRetryAfterSeconds(wait));
+        }
+        for (RouteBucket routeBucket : routeBuckets) {
+            if (routeBucket.pattern.matches(path)) {
+                wait = routeBucket.bucket.tryAcquire();
+                if (wait > 0) {
+                    routeRejected.increment();
+                    return reject(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, toRetryAfterSeconds(wait));
+                }
+                break;
+            }
+        }
+
+        if (limiter == null) {
+            return chain.filter(exchange);
+        }
+        if (!limiter.tryAcquire()) {
+            concurrencyRejected.increment();
+            return reject(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+        }
+        final long start = System.nanoTime();
+        final ServerHttpResponse response = exchange.getResponse();
+        // 流式响应提前归还, 之后结束时不能再还一次
+        final AtomicBoolean released = new AtomicBoolean();
+        response.beforeCommit(() -> {
+            final HttpStatus status = response.getStatusCode();
+            if (status == null || !status.is5xxServerError()) {
+                limiter.onSample(System.nanoTime() - start);
+            }
+            if (isStreaming(response.getHeaders().getContentType()) && released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (released.compareAndSet(false, true)) {
+                        limiter.release();
+                    }
+                });
+    }
+
+    private static boolean isStreaming(@Nullable MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType streaming : STREAMING_MEDIA_TYPES) {
+            if (streaming.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String clientId(ServerHttpRequest request) {
+        if (clientIdHeader != null) {
+            final String clientId = request.getHeaders().getFirst(clientIdHeader);
+            if (StringUtils.hasText(clientId)) {
+                return clientId;
+            }
+        }
+        final InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress == null || remoteAddress.getAddress() == null ? "unknown"
+                : remoteAddress.getAddress().getHostAddress();
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatusCode(status);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    /**
+     * Retry-After 只能是整秒, 向上取整
+     */
+    private static long toRetryAfterSeconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("webflux.admission.rejected")
+                .tag("reason", reason)
+                .description("requests rejected before reaching a handler")
+                .register(registry);
+    }
+
+    @Nullable
+    GradientConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    private static class RouteBucket {
+
+        private final PathPattern pattern;
+
+        private final TokenBucket bucket;
+
+        RouteBucket(PathPattern pattern, TokenBucket bucket) {
+            this.pattern = pattern;
+            this.bucket = bucket;
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.ximo.springwebfluxinaction.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应的并发上限, 思路同 netflix concurrency-limits 的 Gradient2Limit:
+ * <p>
+ * 长期平均延迟 / 本次延迟 就是梯度, 延迟变高说明开始排队了, 按梯度缩小上限; 延迟平稳时每次多给 sqrt(limit) 的余量慢慢试探
+ * <p>
+ * 判断是否放行只有一次 CAS; 更新上限是几次浮点运算, 加锁串行
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class GradientConcurrencyLimiter {
+
+    /**
+     * 本次延迟不超过长期平均的这么多倍都不算变慢
+     */
+    private static final double RTT_TOLERANCE = 1.5;
+
+    /**
+     * 每次最多缩到原来的一半
+     */
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double smoothing;
+
+    /**
+     * 长期平均延迟的 ewma 系数, 相当于最近 window 次的平均
+     */
+    private final double longRttAlpha;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private double estimatedLimit;
+
+    private double longRttNanos;
+
+    /**
+     * @param initialLimit 初始上限
+     * @param minLimit     最小上限
+     * @param maxLimit     最大上限
+     * @param smoothing    新上限所占的比例, 0 到 1, 越小变化越慢
+     * @param window       长期平均延迟覆盖的请求数
+     */
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing, int window) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.longRttAlpha = 2.0 / (window + 1);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * @return 是否放行, 放行后必须调用一次 {@link #release()}
+     */
+    public boolean tryAcquire() {
+        for (; ; ) {
+            final int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 记录一次成功请求的延迟, 出错和取消的请求不要记
+     */
+    public synchronized void onSample(long rttNanos) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * longRttAlpha;
+        }
+        // 过载恢复后长期平均还停在高位, 让它尽快降回来, 否则梯度一直是 1, 上限涨不回去
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // 请求不多时延迟说明不了什么, 上限不要空涨
+        if (inFlight.get() < estimatedLimit / 2) {
+            return;
+        }
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+        final double queueSize = Math.sqrt(estimatedLimit);
+        final double newLimit = estimatedLimit * gradient + queueSize;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.ximo.springwebfluxinaction.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 令牌桶, 用 GCRA 实现: 只记一个 "理论上下一个请求到达的时间", 一次 CAS 完成判断和扣减, 无锁也不分配对象
+ * <p>
+ * 等价于每秒补充 permitsPerSecond 个令牌, 最多攒 burst 个的令牌桶
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+
+    /**
+     * 理论到达时间最多可以比现在超前多少, 超前的部分就是攒下的突发量
+     */
+    private final long toleranceNanos;
+
+    private final LongSupplier nanoTime;
+
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoTime) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.nanoTime = nanoTime;
+        this.theoreticalArrival = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * @return 0 表示拿到了令牌, 否则是还要等多少纳秒才会有令牌
+     */
+    public long tryAcquire() {
+        final long now = nanoTime.getAsLong();
+        for (; ; ) {
+            final long arrival = theoreticalArrival.get();
+            // nanoTime 只能相减比较
+            final long start = arrival - now < 0 ? now : arrival;
+            final long wait = start - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.ximo.springwebfluxinaction.batch;
+
+/**
+ * 等待写入的数据太多, 拒绝新的数据
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class BatchRejectedException extends RuntimeException {
+
+    public BatchRejectedException(String message) {
+        super(message);
+    }
+
+}
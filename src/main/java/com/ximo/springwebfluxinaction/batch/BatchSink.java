@@ -0,0 +1,24 @@
+package com.ximo.springwebfluxinaction.batch;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 批量写入的存储
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@FunctionalInterface
+public interface BatchSink<T> {
+
+    /**
+     * 写入一批数据, 返回的 Mono 完成表示这一批已经提交
+     *
+     * @param batch 一批数据
+     * @return 提交结果
+     */
+    Mono<Void> write(List<T> batch);
+
+}
@@ -0,0 +1,36 @@
+package com.ximo.springwebfluxinaction.batch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.batch")
+public class MicroBatchProperties {
+
+    /**
+     * 一批最多多少条
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * 攒不满一批时最多等多久
+     */
+    private Duration linger = Duration.ofMillis(10);
+
+    /**
+     * 同时提交的批次数
+     */
+    private int maxConcurrentBatches = 2;
+
+    /**
+     * 等待提交的最大条数, 超过后直接拒绝
+     */
+    private int maxPending = 100_000;
+
+}
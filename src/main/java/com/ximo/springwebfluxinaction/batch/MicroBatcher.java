@@ -0,0 +1,142 @@
+package com.ximo.springwebfluxinaction.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 把逐条的写入攒成批再交给 {@link BatchSink}, 攒满 maxBatchSize 条或者等了 linger 之后提交
+ * <p>
+ * 每条数据的 Mono 在它所在的那一批提交后才完成, 提交失败时整批都失败; dispose 之后提交的直接以
+ * {@link BatchRejectedException} 失败
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Slf4j
+public class MicroBatcher<T> implements Disposable {
+
+    private final BatchSink<T> batchSink;
+
+    private final int maxBatchSize;
+
+    private final int maxPending;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final FluxSink<Pending<T>> sink;
+
+    private final Disposable subscription;
+
+    /**
+     * 和 sink.next 一起在锁里读写, 关闭之后 sink 会丢掉新数据, 对应的 Mono 永远不会完成
+     */
+    private boolean disposed;
+
+    public MicroBatcher(BatchSink<T> batchSink, MicroBatchProperties properties) {
+        this.batchSink = batchSink;
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.maxPending = properties.getMaxPending();
+        final UnicastProcessor<Pending<T>> processor = UnicastProcessor.create();
+        // 多个请求同时写, 需要串行化的 sink
+        this.sink = processor.sink();
+        this.subscription = processor
+                .bufferTimeout(properties.getMaxBatchSize(), properties.getLinger())
+                // bufferTimeout 在下游没有需求时到时间会报错, 批次本身的数量已经被 maxPending 限制住了
+                .onBackpressureBuffer()
+                .flatMap(this::commit, properties.getMaxConcurrentBatches())
+                .subscribe();
+    }
+
+    /**
+     * @param item 要写入的数据
+     * @return 所在批次提交后完成
+     */
+    public Mono<Void> submit(T item) {
+        return Mono.defer(() -> {
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                return Mono.error(new BatchRejectedException("too many pending writes: " + maxPending));
+            }
+            final MonoProcessor<Void> committed = MonoProcessor.create();
+            synchronized (this) {
+                if (disposed) {
+                    pending.decrementAndGet();
+                    return Mono.error(new BatchRejectedException("batcher is disposed"));
+                }
+                sink.next(new Pending<>(item, committed));
+            }
+            return committed;
+        });
+    }
+
+    /**
+     * 一个流里的数据最多同时有一批在等待提交
+     *
+     * @param items 要写入的数据
+     * @return 提交的条数
+     */
+    public Mono<Long> submitAll(Flux<T> items) {
+        return items.flatMap(item -> submit(item).thenReturn(item), maxBatchSize)
+                .count();
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    private Mono<Void> commit(List<Pending<T>> batch) {
+        final List<T> items = batch.stream().map(p -> p.item).collect(toList());
+        return Mono.defer(() -> batchSink.write(items))
+                .name("webflux.batch.commit")
+                .metrics()
+                .doOnSuccess(v -> batch.forEach(p -> p.committed.onComplete()))
+                .onErrorResume(e -> {
+                    log.warn("batch of {} failed", items.size(), e);
+                    batch.forEach(p -> p.committed.onError(e));
+                    return Mono.empty();
+                })
+                .doFinally(signal -> pending.addAndGet(-batch.size()));
+    }
+
+    /**
+     * 不再接收新数据, 已经收到的会提交完
+     */
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+        }
+        sink.complete();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return subscription.isDisposed();
+    }
+
+    private static class Pending<T> {
+
+        private final T item;
+
+        private final MonoProcessor<Void> committed;
+
+        Pending(T item, MonoProcessor<Void> committed) {
+            this.item = item;
+            this.committed = committed;
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * 序列化之后的响应
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Getter
+@AllArgsConstructor
+public class CachedResponse {
+
+    private final HttpStatus status;
+
+    private final HttpHeaders headers;
+
+    private final byte[] body;
+
+    /**
+     * 带引号的强校验 etag, 非 2xx 响应没有
+     */
+    private final String etag;
+
+}
@@ -0,0 +1,144 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 包在 {@link HandlerFunction} 外面的响应缓存, 只缓存 GET 的 2xx 响应
+ * <p>
+ * 未命中时先把 handler 的响应渲染成字节存起来, 之后的请求直接写字节, 不再经过 handler 和编码;
+ * 请求带的 If-None-Match 匹配缓存的 etag 时直接返回 304, 匹配规则见 {@link #matchesIfNoneMatch(HttpHeaders, String)}
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class CachingHandlerFilter implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    private final ResponseCache responseCache;
+
+    private final ServerResponse.Context context;
+
+    private final LongAdder notModifiedCount = new LongAdder();
+
+    public CachingHandlerFilter(ResponseCache responseCache, List<HttpMessageWriter<?>> messageWriters) {
+        this.responseCache = responseCache;
+        this.context = new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return messageWriters;
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return Collections.emptyList();
+            }
+        };
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.handle(request);
+        }
+        final String key = cacheKey(request);
+        return responseCache.get(key, () -> render(request, next))
+                .flatMap(cached -> {
+                    // 出错的响应只给这一批并发请求用, 不留在缓存里
+                    if (!cached.getStatus().is2xxSuccessful()) {
+                        responseCache.invalidate(key);
+                    }
+                    return toResponse(request, cached);
+                });
+    }
+
+    public ResponseCacheStats stats() {
+        final ResponseCacheStats stats = responseCache.stats();
+        stats.setNotModifiedCount(notModifiedCount.sum());
+        return stats;
+    }
+
+    private String cacheKey(ServerRequest request) {
+        final String query = request.uri().getRawQuery();
+        return request.uri().getRawPath() + (query != null ? '?' + query : "")
+                + '|' + request.headers().accept();
+    }
+
+    private Mono<CachedResponse> render(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        final ServerWebExchange exchange = request.exchange();
+        final CapturingServerHttpResponse capturing = new CapturingServerHttpResponse(exchange.getResponse().bufferFactory());
+        return next.handle(request)
+                .flatMap(response -> response.writeTo(exchange.mutate().response(capturing).build(), context))
+                .then(Mono.fromSupplier(() -> {
+                    final HttpStatus status = capturing.getStatusCode() != null ? capturing.getStatusCode() : HttpStatus.OK;
+                    final HttpHeaders headers = new HttpHeaders();
+                    headers.putAll(capturing.getHeaders());
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    final byte[] body = capturing.getBody();
+                    final String etag = status.is2xxSuccessful() ? "\"" + DigestUtils.md5DigestAsHex(body) + "\"" : null;
+                    return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body, etag);
+                }));
+    }
+
+    private Mono<ServerResponse> toResponse(ServerRequest request, CachedResponse cached) {
+        if (cached.getEtag() == null) {
+            return ServerResponse.status(cached.getStatus())
+                    .headers(headers -> headers.putAll(cached.getHeaders()))
+                    .body(bodyOf(cached));
+        }
+        if (matchesIfNoneMatch(request.headers().asHttpHeaders(), cached.getEtag())) {
+            notModifiedCount.increment();
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(cached.getEtag())
+                    .build();
+        }
+        return ServerResponse.status(cached.getStatus())
+                .headers(headers -> headers.putAll(cached.getHeaders()))
+                .eTag(cached.getEtag())
+                .body(bodyOf(cached));
+    }
+
+    /**
+     * 按 RFC 7232: 头里可以是逗号分隔的多个 etag 或 *, 用弱比较 (忽略 W/ 前缀); 解析不了时当作没有这个头
+     */
+    static boolean matchesIfNoneMatch(HttpHeaders requestHeaders, String etag) {
+        final List<String> ifNoneMatch;
+        try {
+            ifNoneMatch = requestHeaders.getIfNoneMatch();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        final String opaqueTag = stripWeak(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || stripWeak(candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private BodyInserter<byte[], ReactiveHttpOutputMessage> bodyOf(CachedResponse cached) {
+        return (outputMessage, ctx) -> outputMessage.writeWith(
+                Mono.fromSupplier(() -> outputMessage.bufferFactory().wrap(cached.getBody())));
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 基于 caffeine 的响应缓存, 按响应体字节数和写入时间淘汰
+ * <p>
+ * 用 {@link AsyncCache} 存 future, 并发的未命中拿到的是同一个 future, 不会同时打到 handler 上
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class CaffeineResponseCache implements ResponseCache {
+
+    private final AsyncCache<String, CachedResponse> cache;
+
+    public CaffeineResponseCache(long maxBytes, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, CachedResponse>weigher((key, value) -> value.getBody().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public Mono<CachedResponse> get(String key, Supplier<Mono<CachedResponse>> loader) {
+        return Mono.defer(() -> Mono.fromFuture(cache.get(key, (k, executor) -> loader.get().toFuture())));
+    }
+
+    @Override
+    public void invalidate(String key) {
+        cache.synchronous().invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @Override
+    public ResponseCacheStats stats() {
+        final CacheStats stats = cache.synchronous().stats();
+        return new ResponseCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), 0,
+                cache.synchronous().estimatedSize());
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 不写到连接上, 只把状态码, 响应头和响应体记下来
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+class CapturingServerHttpResponse extends AbstractServerHttpResponse {
+
+    private byte[] body = new byte[0];
+
+    CapturingServerHttpResponse(DataBufferFactory dataBufferFactory) {
+        super(dataBufferFactory);
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getNativeResponse() {
+        return (T) this;
+    }
+
+    @Override
+    protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+        return DataBufferUtils.join(body)
+                .doOnNext(buffer -> {
+                    final byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    this.body = bytes;
+                })
+                .then();
+    }
+
+    @Override
+    protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWithInternal(Flux.from(body).concatMap(Flux::from));
+    }
+
+    @Override
+    protected void applyStatusCode() {
+    }
+
+    @Override
+    protected void applyHeaders() {
+    }
+
+    @Override
+    protected void applyCookies() {
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * 响应缓存, 可以换成其他存储实现
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public interface ResponseCache {
+
+    /**
+     * 未命中时调用 loader, 同一个 key 并发未命中时只会调用一次, 其他请求共用同一个结果
+     *
+     * @param key    缓存 key
+     * @param loader 生成响应
+     * @return 缓存的响应
+     */
+    Mono<CachedResponse> get(String key, Supplier<Mono<CachedResponse>> loader);
+
+    void invalidate(String key);
+
+    void invalidateAll();
+
+    ResponseCacheStats stats();
+
+}
@@ -0,0 +1,23 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 所有缓存响应体加起来的最大字节数
+     */
+    private long maxBytes = 16 * 1024 * 1024;
+
+    private Duration ttl = Duration.ofSeconds(30);
+
+}
@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResponseCacheStats {
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    /**
+     * 命中 If-None-Match 直接返回 304 的次数
+     */
+    private long notModifiedCount;
+
+    private long size;
+
+}
@@ -0,0 +1,88 @@
+package com.ximo.springwebfluxinaction.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 记录 reactor netty 为每个远端地址创建的连接池, 用于查看 active/idle/pending 数量
+ * <p>
+ * 绑定到 {@link MeterRegistry} 后每个连接池都会注册 webflux.client.pool.* 的 gauge, 之后新建的连接池也会注册
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ConnectionPoolRegistry implements ConnectionProvider.MeterRegistrar, MeterBinder {
+
+    private final Map<String, PoolEntry> pools = new ConcurrentHashMap<>();
+
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public synchronized void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                             ConnectionPoolMetrics metrics) {
+        final PoolEntry entry = new PoolEntry(poolName, String.valueOf(remoteAddress), metrics);
+        pools.put(poolName + "/" + id, entry);
+        if (meterRegistry != null) {
+            entry.bindTo(meterRegistry);
+        }
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        pools.values().forEach(entry -> entry.bindTo(registry));
+    }
+
+    public List<ConnectionPoolSnapshot> snapshot() {
+        return pools.values().stream()
+                .map(PoolEntry::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    private static class PoolEntry {
+
+        private final String poolName;
+
+        private final String remoteAddress;
+
+        private final ConnectionPoolMetrics metrics;
+
+        PoolEntry(String poolName, String remoteAddress, ConnectionPoolMetrics metrics) {
+            this.poolName = poolName;
+            this.remoteAddress = remoteAddress;
+            this.metrics = metrics;
+        }
+
+        void bindTo(MeterRegistry registry) {
+            final Tags tags = Tags.of("pool", poolName, "remote", remoteAddress);
+            gauge(registry, "webflux.client.pool.active", tags, ConnectionPoolMetrics::acquiredSize);
+            gauge(registry, "webflux.client.pool.idle", tags, ConnectionPoolMetrics::idleSize);
+            gauge(registry, "webflux.client.pool.pending", tags, ConnectionPoolMetrics::pendingAcquireSize);
+            gauge(registry, "webflux.client.pool.allocated", tags, ConnectionPoolMetrics::allocatedSize);
+        }
+
+        private void gauge(MeterRegistry registry, String name, Tags tags,
+                           ToDoubleFunction<ConnectionPoolMetrics> value) {
+            Gauge.builder(name, metrics, value)
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        ConnectionPoolSnapshot snapshot() {
+            return new ConnectionPoolSnapshot(poolName, remoteAddress, metrics.acquiredSize(),
+                    metrics.idleSize(), metrics.pendingAcquireSize(), metrics.allocatedSize());
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.ximo.springwebfluxinaction.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 某个远端地址的连接池状态
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionPoolSnapshot {
+
+    private String poolName;
+
+    private String remoteAddress;
+
+    private int active;
+
+    private int idle;
+
+    private int pending;
+
+    private int allocated;
+
+}
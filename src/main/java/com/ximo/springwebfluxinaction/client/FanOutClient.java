@@ -0,0 +1,90 @@
+package com.ximo.springwebfluxinaction.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 同时请求多个上游, 结果边到边合并
+ * <p>
+ * 上游流式返回 (默认 smile 流, 见 webflux.proxy.media-type), 下游的 request 经过 flatMap 的 prefetch 传到每个上游连接,
+ * 下游消费慢时 reactor netty 会停止读 socket, 而不是把整个响应读进堆里
+ * <p>
+ * 同时在进行的相同上游请求 (方法, 地址, Accept 和元素类型都相同) 通过 {@link SingleFlight} 共用一次上游订阅,
+ * 上游的请求量随不同的请求数增长, 而不是随总请求数
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class FanOutClient {
+
+    private final WebClient webClient;
+
+    private final ProxyProperties properties;
+
+    private final MediaType mediaType;
+
+    private final SingleFlight<String> singleFlight;
+
+    public FanOutClient(WebClient webClient, ProxyProperties properties) {
+        this(webClient, properties, singleFlight(properties.getDedup()));
+    }
+
+    public FanOutClient(WebClient webClient, ProxyProperties properties, SingleFlight<String> singleFlight) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.mediaType = MediaType.parseMediaType(properties.getMediaType());
+        this.singleFlight = singleFlight;
+    }
+
+    public static SingleFlight<String> singleFlight(ProxyProperties.Dedup dedup) {
+        return new SingleFlight<>("proxy", dedup.getMaxFanIn(), dedup.getReplayBuffer(), dedup.getStaleAfter());
+    }
+
+    public <T> Flux<T> fanOut(Class<T> elementType, boolean ordered) {
+        return fanOut(properties.getUpstreams(), elementType, ordered);
+    }
+
+    /**
+     * @param uris        上游地址
+     * @param elementType 元素类型
+     * @param ordered     true 时用 flatMapSequential, 先到的后面上游的数据会先缓存在 prefetch 范围内
+     */
+    public <T> Flux<T> fanOut(List<String> uris, Class<T> elementType, boolean ordered) {
+        final Flux<String> upstreams = Flux.fromIterable(uris);
+        if (ordered) {
+            return upstreams.flatMapSequential(uri -> stream(uri, elementType),
+                    properties.getConcurrency(), properties.getPrefetch());
+        }
+        return upstreams.flatMap(uri -> stream(uri, elementType),
+                properties.getConcurrency(), properties.getPrefetch());
+    }
+
+    public SingleFlight<String> getSingleFlight() {
+        return singleFlight;
+    }
+
+    private <T> Flux<T> stream(String uri, Class<T> elementType) {
+        if (!properties.getDedup().isEnabled()) {
+            return request(uri, elementType);
+        }
+        // 其余请求头 (服务 token 等) 对同一个 WebClient 都一样, 不用放进 key
+        final String key = HttpMethod.GET + " " + uri + " " + mediaType + " " + elementType.getName();
+        return singleFlight.execute(key, () -> request(uri, elementType));
+    }
+
+    private <T> Flux<T> request(String uri, Class<T> elementType) {
+        return webClient.get()
+                .uri(uri)
+                .accept(mediaType)
+                .retrieve()
+                .bodyToFlux(elementType)
+                // 上游耗时和每个元素的间隔, 见 reactor.flow.duration 和 reactor.onNext.delay, 按上游区分看 http.client.requests
+                .name("webflux.proxy.upstream")
+                .metrics();
+    }
+
+}
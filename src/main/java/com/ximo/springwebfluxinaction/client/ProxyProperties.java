@@ -0,0 +1,73 @@
+package com.ximo.springwebfluxinaction.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * /flux/webclient 代理的上游和并发参数
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.proxy")
+public class ProxyProperties {
+
+    /**
+     * 上游地址, 相对路径基于 webflux.client.base-url
+     */
+    private List<String> upstreams = new ArrayList<>(Collections.singletonList("/flux/example"));
+
+    /**
+     * 同时请求的上游个数
+     */
+    private int concurrency = 8;
+
+    /**
+     * 每个上游预取的元素个数, 也就是向上游 socket 要的量
+     */
+    private int prefetch = 32;
+
+    /**
+     * 是否按上游顺序输出
+     */
+    private boolean ordered = false;
+
+    /**
+     * 请求上游时的 Accept, 默认用二进制的 smile 流, 比 ndjson 小, 编解码也更省 cpu
+     */
+    private String mediaType = "application/stream+x-jackson-smile";
+
+    /**
+     * 相同上游请求的合并, 见 {@link SingleFlight}
+     */
+    private Dedup dedup = new Dedup();
+
+    @Data
+    public static class Dedup {
+
+        private boolean enabled = true;
+
+        /**
+         * 一次上游订阅最多被多少个请求共用
+         */
+        private int maxFanIn = 256;
+
+        /**
+         * 重放缓冲的元素个数, 上游发出的元素超过它之后不再接受新的请求加入
+         */
+        private int replayBuffer = 256;
+
+        /**
+         * 上游订阅开始多久之后不再接受新的请求加入
+         */
+        private Duration staleAfter = Duration.ofMillis(500);
+
+    }
+
+}
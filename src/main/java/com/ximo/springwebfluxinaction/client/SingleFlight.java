@@ -0,0 +1,227 @@
+package com.ximo.springwebfluxinaction.client;
+
+import com.ximo.springwebfluxinaction.resilience.Deadline;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 相同 key 的并发请求共用一次上游订阅: 第一个请求订阅上游, 之后的请求加入它, 从头重放已经收到的元素再接着收
+ * <p>
+ * 重放缓冲有上限, 上游发出的元素超过缓冲后不再接受新的加入; 一次上游订阅加入的请求数超过 max-fan-in,
+ * 或者开始的时间超过 stale-after 的, 新请求另开一次上游订阅. 上游结束或者所有请求都取消后从表里移除, 不做缓存
+ * <p>
+ * 上游在第一个请求的 context 里订阅, 但去掉了其中的 {@link Deadline}, 共用的订阅只受上游自己配置的超时限制,
+ * 不会因为第一个请求的截止时间短而让所有加入的请求一起失败; 每个请求自己的截止时间只限制它等第一个元素的时间.
+ * 各请求的 request 不再传到上游, 上游按重放缓冲的大小预取
+ * <p>
+ * 加入时刚好错过了开头的请求不会收到残缺的数据, 而是自己单独请求一次上游; 每个请求最多积压重放缓冲那么多个没消费的元素,
+ * 消费慢的请求超过之后同样改为自己单独请求, 跳过已经收到的部分, 不会让共用的订阅替它缓存整个上游
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class SingleFlight<K> implements MeterBinder {
+
+    private static final MissedReplay MISSED_REPLAY = new MissedReplay();
+
+    private final Map<K, Flight<?>> flights = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    private final int maxFanIn;
+
+    private final int replayBuffer;
+
+    private final long staleAfterNanos;
+
+    private final LongAdder leaders = new LongAdder();
+
+    private final LongAdder joined = new LongAdder();
+
+    private final LongAdder missed = new LongAdder();
+
+    private final LongAdder lagged = new LongAdder();
+
+    public SingleFlight(String name, int maxFanIn, int replayBuffer, Duration staleAfter) {
+        if (maxFanIn < 1 || replayBuffer < 1) {
+            throw new IllegalArgumentException("max fan-in and replay buffer must be positive");
+        }
+        this.name = name;
+        this.maxFanIn = maxFanIn;
+        this.replayBuffer = replayBuffer;
+        this.staleAfterNanos = staleAfter.toNanos();
+    }
+
+    /**
+     * @param upstream 没有可加入的上游订阅时调用, 每次调用都应该是一次新的请求
+     */
+    public <T> Flux<T> execute(K key, Supplier<? extends Flux<T>> upstream) {
+        return Flux.deferWithContext(context -> {
+            final Flight<T> flight = join(key, upstream);
+            final long[] delivered = new long[1];
+            final boolean[] lagging = new boolean[1];
+            final Flux<T> shared = flight.shared
+                    // 各请求自己缓冲没消费的元素, 重放的那边一直能往下发, 不会为慢的请求留住已经发过的元素
+                    .onBackpressureBuffer(replayBuffer, element -> lagging[0] = true, BufferOverflowStrategy.ERROR)
+                    .<T>handle((element, sink) -> {
+                        if (element.getT1() != delivered[0]) {
+                            sink.error(MISSED_REPLAY);
+                        } else {
+                            delivered[0]++;
+                            sink.next(element.getT2());
+                        }
+                    })
+                    .onErrorResume(e -> e instanceof MissedReplay || lagging[0], e -> {
+                        (lagging[0] ? lagged : missed).increment();
+                        return upstream.get().skip(delivered[0]);
+                    });
+            final Deadline deadline = context.getOrDefault(Deadline.class, null);
+            return deadline == null ? shared : shared.timeout(Mono.delay(deadline.remaining()), element -> Mono.never());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Flight<T> join(K key, Supplier<? extends Flux<T>> upstream) {
+        while (true) {
+            final Flight<T> current = (Flight<T>) flights.get(key);
+            if (current != null && current.tryJoin()) {
+                joined.increment();
+                return current;
+            }
+            final Flight<T> flight = new Flight<>(key, upstream.get());
+            final boolean installed = current == null
+                    ? flights.putIfAbsent(key, flight) == null
+                    : flights.replace(key, current, flight);
+            if (installed) {
+                leaders.increment();
+                return flight;
+            }
+        }
+    }
+
+    /**
+     * 进行中的上游订阅数
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    /**
+     * 订阅上游的请求数
+     */
+    public long getLeaders() {
+        return leaders.sum();
+    }
+
+    /**
+     * 加入已有上游订阅的请求数
+     */
+    public long getJoined() {
+        return joined.sum();
+    }
+
+    /**
+     * 加入后错过开头, 改为单独请求的次数
+     */
+    public long getMissed() {
+        return missed.sum();
+    }
+
+    /**
+     * 消费太慢积压超过重放缓冲, 改为单独请求的次数
+     */
+    public long getLagged() {
+        return lagged.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "leader", SingleFlight::getLeaders);
+        counter(registry, "joined", SingleFlight::getJoined);
+        counter(registry, "missed", SingleFlight::getMissed);
+        counter(registry, "lagged", SingleFlight::getLagged);
+        Gauge.builder("webflux.singleflight.inflight", this, SingleFlight::getInFlight)
+                .tag("name", name)
+                .description("shared upstream subscriptions in progress")
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String role,
+                         ToDoubleFunction<SingleFlight<K>> function) {
+        FunctionCounter.builder("webflux.singleflight.requests", this, function)
+                .tags("name", name, "role", role)
+                .description("requests by whether they subscribed upstream or joined a shared subscription")
+                .register(registry);
+    }
+
+    private final class Flight<T> {
+
+        private final long startNanos = System.nanoTime();
+
+        /**
+         * 已经加入的请求数, 包括第一个
+         */
+        private final AtomicInteger subscribers = new AtomicInteger(1);
+
+        private volatile boolean closed;
+
+        private final Flux<Tuple2<Long, T>> shared;
+
+        Flight(K key, Flux<T> upstream) {
+            this.shared = upstream
+                    .subscriberContext(context -> context.delete(Deadline.class))
+                    .index()
+                    .doOnNext(element -> {
+                        if (element.getT1() + 1 >= replayBuffer) {
+                            closed = true;
+                        }
+                    })
+                    // 结束信号发给各请求之前就移除, 请求拿到结果后马上再发的相同请求不会加入已经结束的订阅
+                    .doOnTerminate(() -> release(key))
+                    .doOnCancel(() -> release(key))
+                    .replay(replayBuffer)
+                    .refCount();
+        }
+
+        private void release(K key) {
+            closed = true;
+            flights.remove(key, this);
+        }
+
+        boolean tryJoin() {
+            if (closed || System.nanoTime() - startNanos > staleAfterNanos) {
+                return false;
+            }
+            if (subscribers.incrementAndGet() > maxFanIn) {
+                subscribers.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 只用来切换到单独请求, 不需要堆栈
+     */
+    private static final class MissedReplay extends RuntimeException {
+
+        MissedReplay() {
+            super("joined a shared upstream after its replay buffer was exceeded", null, false, false);
+        }
+    }
+
+}
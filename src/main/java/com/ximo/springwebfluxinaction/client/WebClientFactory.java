@@ -0,0 +1,157 @@
+package com.ximo.springwebfluxinaction.client;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.JettyClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 创建共用同一个固定大小连接池的 webclient, 代替 {@code WebClient.create()} 的默认连接池
+ * <p>
+ * 开启 webflux.client.http2 时改用 jetty 的 http/2 客户端, 请求在每个远端地址的少数几个连接上多路复用;
+ * reactor netty 0.9 的客户端不能在连接池里复用 http/2 连接. 此时不经过 reactor netty 的连接池, 也就没有连接池指标
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class WebClientFactory implements DisposableBean {
+
+    private static final String READ_TIMEOUT_HANDLER = "webflux.client.readTimeout";
+
+    private static final String WRITE_TIMEOUT_HANDLER = "webflux.client.writeTimeout";
+
+    private final WebClientProperties properties;
+
+    private final Supplier<WebClient.Builder> builderSupplier;
+
+    private final ConnectionPoolRegistry poolRegistry = new ConnectionPoolRegistry();
+
+    private final ConnectionProvider connectionProvider;
+
+    private final HttpClient httpClient;
+
+    private final org.eclipse.jetty.client.HttpClient http2Client;
+
+    private final ClientHttpConnector http2Connector;
+
+    public WebClientFactory(WebClientProperties properties, ReactorResourceFactory resourceFactory,
+                            Supplier<WebClient.Builder> builderSupplier) {
+        this.properties = properties;
+        this.builderSupplier = builderSupplier;
+        this.connectionProvider = createConnectionProvider(properties.getPool());
+        this.httpClient = createHttpClient(resourceFactory);
+        this.http2Client = properties.getHttp2().isEnabled() ? createHttp2Client() : null;
+        this.http2Connector = http2Client != null ? new JettyClientHttpConnector(http2Client) : null;
+    }
+
+    private ConnectionProvider createConnectionProvider(WebClientProperties.Pool pool) {
+        return ConnectionProvider.builder(pool.getName())
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(true, () -> poolRegistry)
+                .build();
+    }
+
+    /**
+     * 读写超时只在请求期间挂在连接上: 写超时从发请求到请求写完, 读超时从收到响应头到响应读完.
+     * 连上时就加的话, 放回连接池的空闲连接过了 read-timeout 就会被关掉, max-idle-time 形同虚设
+     */
+    private HttpClient createHttpClient(ReactorResourceFactory resourceFactory) {
+        final long readTimeout = properties.getReadTimeout().toMillis();
+        final long writeTimeout = properties.getWriteTimeout().toMillis();
+        return HttpClient.create(connectionProvider)
+                .keepAlive(properties.isKeepAlive())
+                .responseTimeout(properties.getResponseTimeout())
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .runOn(resourceFactory.getLoopResources())
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                        .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive()))
+                .doOnRequest((request, connection) -> connection.addHandlerLast(WRITE_TIMEOUT_HANDLER,
+                        new WriteTimeoutHandler(writeTimeout, TimeUnit.MILLISECONDS)))
+                .doAfterRequest((request, connection) -> connection.removeHandler(WRITE_TIMEOUT_HANDLER))
+                .doOnResponse((response, connection) -> connection.addHandlerLast(READ_TIMEOUT_HANDLER,
+                        new ReadTimeoutHandler(readTimeout, TimeUnit.MILLISECONDS)))
+                .doAfterResponse((response, connection) -> connection.removeHandler(READ_TIMEOUT_HANDLER));
+    }
+
+    /**
+     * 不接受服务端推送; 一个连接上的并发 stream 数由服务端的 SETTINGS 决定, 用满后才建新连接
+     */
+    private org.eclipse.jetty.client.HttpClient createHttp2Client() {
+        final WebClientProperties.Http2 http2 = properties.getHttp2();
+        final HTTP2Client client = new HTTP2Client();
+        client.setInitialStreamRecvWindow(http2.getInitialStreamWindowSize());
+        client.setInitialSessionRecvWindow(http2.getConnectionWindowSize());
+        client.setMaxConcurrentPushedStreams(0);
+
+        final QueuedThreadPool threadPool = new QueuedThreadPool();
+        threadPool.setName(properties.getPool().getName() + "-h2");
+        threadPool.setDaemon(true);
+
+        final org.eclipse.jetty.client.HttpClient httpClient = new org.eclipse.jetty.client.HttpClient(
+                new HttpClientTransportOverHTTP2(client), new SslContextFactory.Client(http2.isTrustAll()));
+        httpClient.setExecutor(threadPool);
+        httpClient.setMaxConnectionsPerDestination(http2.getMaxConnections());
+        httpClient.setMaxRequestsQueuedPerDestination(properties.getPool().getPendingAcquireMaxCount());
+        httpClient.setConnectTimeout(properties.getConnectTimeout().toMillis());
+        httpClient.setIdleTimeout(properties.getReadTimeout().toMillis());
+        try {
+            httpClient.start();
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot start http/2 client", e);
+        }
+        return httpClient;
+    }
+
+    /**
+     * 使用共享连接池的 builder, 每次调用都是新的 builder
+     */
+    public WebClient.Builder builder() {
+        return builderSupplier.get()
+                .clientConnector(http2Connector != null ? http2Connector : new ReactorClientHttpConnector(httpClient));
+    }
+
+    public WebClient create(String baseUrl) {
+        return builder().baseUrl(baseUrl).build();
+    }
+
+    public WebClient create() {
+        return create(properties.getBaseUrl());
+    }
+
+    public List<ConnectionPoolSnapshot> poolSnapshot() {
+        return poolRegistry.snapshot();
+    }
+
+    public ConnectionPoolRegistry getPoolRegistry() {
+        return poolRegistry;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        connectionProvider.dispose();
+        if (http2Client != null) {
+            http2Client.stop();
+        }
+    }
+
+}
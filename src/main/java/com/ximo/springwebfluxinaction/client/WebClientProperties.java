@@ -0,0 +1,191 @@
+package com.ximo.springwebfluxinaction.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * webclient 连接池和超时参数
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.client")
+public class WebClientProperties {
+
+    private String baseUrl = "http://localhost:8080";
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 两次读之间的最长间隔
+     */
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    private Duration writeTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 请求发出后到收到响应头的最长时间
+     */
+    private Duration responseTimeout = Duration.ofSeconds(5);
+
+    private boolean keepAlive = true;
+
+    private Pool pool = new Pool();
+
+    /**
+     * 用 http/2 调用上游, 见 WebClientFactory
+     */
+    private Http2 http2 = new Http2();
+
+    /**
+     * 超时, 重试, 熔断和对冲, 见 ResilienceExchangeFilter
+     */
+    private Resilience resilience = new Resilience();
+
+    @Data
+    public static class Pool {
+
+        private String name = "webflux-client";
+
+        /**
+         * 每个远端地址的最大连接数
+         */
+        private int maxConnections = 200;
+
+        /**
+         * 等待获取连接的最大请求数, 超出直接失败而不是无限排队
+         */
+        private int pendingAcquireMaxCount = 1000;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(1);
+
+        /**
+         * 空闲连接的最长存活时间
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+
+        /**
+         * 后台清理空闲连接的周期, 0 表示只在获取连接时清理
+         */
+        private Duration evictionInterval = Duration.ofSeconds(15);
+
+    }
+
+    @Data
+    public static class Http2 {
+
+        /**
+         * http 地址直接走 h2c (prior knowledge), https 地址通过 alpn 协商; 上游必须支持 http/2
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个远端地址的连接数, 请求作为 stream 在这几个连接上复用, 一个连接的 stream 用满才建下一个
+         */
+        private int maxConnections = 2;
+
+        /**
+         * 每个 stream 的接收窗口, 字节
+         */
+        private int initialStreamWindowSize = 1024 * 1024;
+
+        /**
+         * 整个连接的接收窗口, 字节
+         */
+        private int connectionWindowSize = 8 * 1024 * 1024;
+
+        /**
+         * 信任所有服务端证书, 只用于本地的自签证书
+         */
+        private boolean trustAll = false;
+
+    }
+
+    @Data
+    public static class Resilience {
+
+        private boolean enabled = true;
+
+        /**
+         * 一次调用 (包括重试和对冲) 拿到响应的总时限, 调用方传来的截止时间更早时以调用方为准
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+
+        private Retry retry = new Retry();
+
+        private Breaker circuitBreaker = new Breaker();
+
+        private Hedge hedge = new Hedge();
+
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * 幂等请求最多重试几次, 0 不重试
+         */
+        private int maxRetries = 2;
+
+        private Duration minBackoff = Duration.ofMillis(50);
+
+        private Duration maxBackoff = Duration.ofSeconds(1);
+
+        /**
+         * 退避时间的随机抖动比例, 0 到 1
+         */
+        private double jitter = 0.5;
+
+    }
+
+    @Data
+    public static class Breaker {
+
+        private boolean enabled = true;
+
+        /**
+         * 窗口内失败率达到多少打开
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 窗口内至少多少次调用才判断失败率
+         */
+        private int minimumCalls = 20;
+
+        private Duration window = Duration.ofSeconds(10);
+
+        private Duration openDuration = Duration.ofSeconds(5);
+
+        /**
+         * 半开时放行的试探请求数
+         */
+        private int halfOpenCalls = 5;
+
+    }
+
+    @Data
+    public static class Hedge {
+
+        private boolean enabled = false;
+
+        /**
+         * 等到最近耗时的这个分位数还没有响应就发对冲请求
+         */
+        private double percentile = 0.95;
+
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * 样本数不够时不对冲
+         */
+        private int minSamples = 100;
+
+    }
+
+}
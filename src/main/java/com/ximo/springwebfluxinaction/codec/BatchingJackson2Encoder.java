@@ -0,0 +1,397 @@
+package com.ximo.springwebfluxinaction.codec;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import org.reactivestreams.Publisher;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.CodecException;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.codec.json.Jackson2CodecSupport;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把 Flux 里的元素用同一个 JsonGenerator 连续写进池化的 {@link DataBuffer}, 写满 bufferSize 字节就发出一个 buffer
+ * <p>
+ * 和 spring 的 {@link org.springframework.http.codec.json.Jackson2JsonEncoder} 比:
+ * <ul>
+ * <li>流式 media type 不再每个元素一个 buffer 一个 generator, 发出的 buffer 个数和 flush 次数按字节数而不是元素个数算</li>
+ * <li>application/json 直接边生成边写 json 数组, 不再先 collectList 把整个 Flux 收集到内存里</li>
+ * </ul>
+ * 流式输出时上游停下来的元素不会一直攒在没写满的 buffer 里, 最多等 maxLinger 就发出去.
+ * 取消或出错时还没发出去的 buffer 会立即释放. 只支持 UTF-8
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class BatchingJackson2Encoder implements HttpMessageEncoder<Object> {
+
+    private static final char NEWLINE = '\n';
+
+    /**
+     * 默认的最长滞留时间
+     */
+    public static final Duration DEFAULT_MAX_LINGER = Duration.ofMillis(50);
+
+    /**
+     * 定时插进元素流里的标记, 收到时把没写满的 buffer 发出去
+     */
+    private static final Object FLUSH = new Object();
+
+    private final ObjectMapper objectMapper;
+
+    private final List<MimeType> mimeTypes;
+
+    private final List<MediaType> streamingMediaTypes;
+
+    private final int bufferSize;
+
+    private final Duration maxLinger;
+
+    /**
+     * 流式输出没写满的 buffer 最多等 {@link #DEFAULT_MAX_LINGER}
+     *
+     * @see #BatchingJackson2Encoder(ObjectMapper, int, Duration, List, MimeType...)
+     */
+    public BatchingJackson2Encoder(ObjectMapper objectMapper, int bufferSize, List<MediaType> streamingMediaTypes,
+                                   MimeType... mimeTypes) {
+        this(objectMapper, bufferSize, DEFAULT_MAX_LINGER, streamingMediaTypes, mimeTypes);
+    }
+
+    /**
+     * @param objectMapper        json 或者 smile 的 ObjectMapper
+     * @param bufferSize          每个 buffer 写到多少字节发出
+     * @param maxLinger           流式输出时写了一部分的 buffer 最多等多久就发出, 0 表示只按字节数发出
+     * @param streamingMediaTypes 按元素流式输出的 media type, 其他的都输出成数组
+     * @param mimeTypes           支持的全部 media type
+     */
+    public BatchingJackson2Encoder(ObjectMapper objectMapper, int bufferSize, Duration maxLinger,
+                                   List<MediaType> streamingMediaTypes, MimeType... mimeTypes) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxLinger = maxLinger;
+        this.streamingMediaTypes = Collections.unmodifiableList(new ArrayList<>(streamingMediaTypes));
+        this.mimeTypes = Collections.unmodifiableList(Arrays.asList(mimeTypes));
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return mimeTypes;
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return streamingMediaTypes;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        if (!supportsMimeType(mimeType)) {
+            return false;
+        }
+        final Class<?> clazz = elementType.toClass();
+        // String 交给 CharSequenceEncoder, 和 spring 的 jackson encoder 一致
+        return Object.class == clazz
+                || (!String.class.isAssignableFrom(elementType.resolve(clazz)) && objectMapper.canSerialize(clazz));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, @Nullable MimeType mimeType,
+                                   @Nullable Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        final boolean streaming = isStreaming(mimeType);
+        final ObjectWriter writer = writer(elementType, hints);
+        return Flux.defer(() -> {
+            final Batch batch = new Batch(bufferFactory, writer, streaming);
+            final Flux<Object> source = Flux.from(inputStream);
+            return (streaming ? withLinger(source) : source)
+                    .<DataBuffer>handle(batch::write)
+                    .concatWith(Mono.fromCallable(batch::finish))
+                    .doFinally(signal -> batch.release());
+        }).doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        final DataBuffer buffer = bufferFactory.allocateBuffer();
+        boolean release = true;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer.asOutputStream(),
+                JsonEncoding.UTF8)) {
+            writer(valueType, hints).writeValue(generator, value);
+            release = false;
+            return buffer;
+        } catch (IOException e) {
+            throw encodingException(e);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * 和 spring 的 jackson encoder 一样, 从 controller 方法上的 {@link JsonView} 取序列化视图
+     */
+    @Override
+    public Map<String, Object> getEncodeHints(ResolvableType actualType, ResolvableType elementType,
+                                              @Nullable MediaType mediaType, ServerHttpRequest request,
+                                              ServerHttpResponse response) {
+        if (!(actualType.getSource() instanceof MethodParameter)) {
+            return Collections.emptyMap();
+        }
+        final MethodParameter parameter = (MethodParameter) actualType.getSource();
+        final JsonView annotation = parameter.getMethodAnnotation(JsonView.class);
+        if (annotation == null) {
+            return Collections.emptyMap();
+        }
+        Assert.isTrue(annotation.value().length == 1,
+                "@JsonView only supported for write hints with exactly 1 class argument: " + parameter);
+        return Collections.singletonMap(Jackson2CodecSupport.JSON_VIEW_HINT, annotation.value()[0]);
+    }
+
+    /**
+     * 按 hints 里的视图和元素类型建 writer, 集合类型要指定类型, 否则泛型参数上的多态信息会丢掉
+     */
+    private ObjectWriter writer(ResolvableType valueType, @Nullable Map<String, Object> hints) {
+        final Class<?> view = hints == null ? null : (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT);
+        ObjectWriter writer = view == null ? objectMapper.writer() : objectMapper.writerWithView(view);
+        final JavaType javaType = objectMapper.getTypeFactory().constructType(valueType.getType());
+        if (javaType.isContainerType()) {
+            writer = writer.forType(javaType);
+        }
+        return writer;
+    }
+
+    /**
+     * 每隔 maxLinger 往元素流里插一个 {@link #FLUSH}, 上游完成或出错时定时器跟着停
+     */
+    private Flux<Object> withLinger(Flux<Object> source) {
+        if (maxLinger == null || maxLinger.isZero()) {
+            return source;
+        }
+        return source.publish(shared -> Flux.merge(shared, Flux.interval(maxLinger, maxLinger)
+                .onBackpressureDrop()
+                .<Object>map(tick -> FLUSH)
+                .takeUntilOther(shared.ignoreElements())));
+    }
+
+    private boolean supportsMimeType(@Nullable MimeType mimeType) {
+        if (mimeType == null) {
+            return true;
+        }
+        if (mimeType.getCharset() != null && !StandardCharsets.UTF_8.equals(mimeType.getCharset())) {
+            return false;
+        }
+        return mimeTypes.stream().anyMatch(supported -> supported.isCompatibleWith(mimeType));
+    }
+
+    private boolean isStreaming(@Nullable MimeType mimeType) {
+        return mimeType != null && streamingMediaTypes.stream().anyMatch(type -> type.isCompatibleWith(mimeType));
+    }
+
+    private boolean isJson() {
+        return JsonFactory.FORMAT_NAME_JSON.equals(objectMapper.getFactory().getFormatName());
+    }
+
+    private static RuntimeException encodingException(IOException e) {
+        if (e instanceof InvalidDefinitionException) {
+            return new CodecException("Type definition error: " + ((InvalidDefinitionException) e).getType(), e);
+        }
+        if (e instanceof JsonProcessingException) {
+            return new EncodingException("JSON encoding error: " + ((JsonProcessingException) e).getOriginalMessage(), e);
+        }
+        return new IllegalStateException("Unexpected I/O error while writing to data buffer", e);
+    }
+
+    /**
+     * 一次 encode 的状态, 整个流共用一个 generator, generator 写入的目标 buffer 写满后换新的.
+     * <p>
+     * 元素和取消可能来自不同线程, 所以方法都加了锁, 释放之后再写入的数据直接丢弃
+     */
+    private class Batch extends OutputStream {
+
+        private final DataBufferFactory bufferFactory;
+
+        private final boolean array;
+
+        /**
+         * 流式 json 每个元素后面跟一个换行, smile 本身就能区分连续的多个值, 不需要分隔
+         */
+        private final boolean separator;
+
+        private final ObjectWriter writer;
+
+        private JsonGenerator generator;
+
+        private DataBuffer current;
+
+        private boolean released;
+
+        Batch(DataBufferFactory bufferFactory, ObjectWriter writer, boolean streaming) {
+            this.bufferFactory = bufferFactory;
+            this.array = !streaming;
+            this.separator = streaming && isJson();
+            // 由这里决定什么时候 flush
+            this.writer = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        synchronized void write(Object value, SynchronousSink<DataBuffer> sink) {
+            if (released) {
+                return;
+            }
+            try {
+                if (value == FLUSH) {
+                    flush(sink);
+                    return;
+                }
+                writer.writeValue(generator(), value);
+                if (separator) {
+                    generator.writeRaw(NEWLINE);
+                }
+                // generator 自己还攒着没写到 buffer 里的也算上, 不够一个 buffer 时不用 flush
+                final int buffered = generator.getOutputBuffered();
+                if (buffered < 0) {
+                    // 不知道攒了多少的 generator 每个元素都 flush
+                    generator.flush();
+                }
+                final int size = (current == null ? 0 : current.readableByteCount()) + Math.max(buffered, 0);
+                if (size >= bufferSize) {
+                    flush(sink);
+                }
+            } catch (IOException e) {
+                sink.error(encodingException(e));
+            }
+        }
+
+        /**
+         * 把写了一部分的 buffer 发出去, 什么都没写过时不发
+         */
+        private void flush(SynchronousSink<DataBuffer> sink) throws IOException {
+            if (generator == null) {
+                return;
+            }
+            generator.flush();
+            if (current != null) {
+                final DataBuffer partial = current;
+                current = null;
+                sink.next(partial);
+            }
+        }
+
+        /**
+         * @return 最后一个没写满的 buffer, 没有数据时为 null, Mono.fromCallable 会当成空
+         */
+        @Nullable
+        synchronized DataBuffer finish() {
+            if (released) {
+                return null;
+            }
+            try {
+                final JsonGenerator generator = generator();
+                if (array) {
+                    generator.writeEndArray();
+                }
+                generator.flush();
+            } catch (IOException e) {
+                throw encodingException(e);
+            }
+            final DataBuffer last = current;
+            current = null;
+            return last;
+        }
+
+        synchronized void release() {
+            released = true;
+            if (current != null) {
+                DataBufferUtils.release(current);
+                current = null;
+            }
+            if (generator != null) {
+                try {
+                    // 把 jackson 内部的缓冲还给 BufferRecycler, 写出的内容已经没人要了
+                    generator.close();
+                } catch (IOException ignored) {
+                    // 目标是内存 buffer, 不会有 io 异常
+                }
+            }
+        }
+
+        private JsonGenerator generator() throws IOException {
+            if (generator == null) {
+                generator = objectMapper.getFactory().createGenerator(this, JsonEncoding.UTF8);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (isJson()) {
+                    // 流里的多个根节点之间不要默认的空格, smile 没有这个设置
+                    generator.setRootValueSeparator(null);
+                }
+                if (array) {
+                    generator.writeStartArray();
+                }
+            }
+            return generator;
+        }
+
+        /**
+         * 已经释放了之后 generator.close() 之类还会往外写, 直接丢掉
+         */
+        @Override
+        public void write(int b) {
+            if (!released) {
+                target().write((byte) b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) {
+            if (!released) {
+                target().write(bytes, off, len);
+            }
+        }
+
+        private DataBuffer target() {
+            if (current == null) {
+                current = bufferFactory.allocateBuffer(bufferSize);
+            }
+            return current;
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.ximo.springwebfluxinaction.codec;
+
+import org.springframework.http.MediaType;
+
+/**
+ * spring 5.2 还没有内置的流式 media type, 以及 smile 的 media type 常量
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public final class StreamingMediaTypes {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * 每行一个 json, 行之间用换行分隔
+     */
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * jackson 的二进制 json, 整个 Flux 编码成一个数组
+     */
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    /**
+     * 一个接一个的 smile 值, 服务之间的调用默认用这个
+     */
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.valueOf(APPLICATION_STREAM_SMILE_VALUE);
+
+    private StreamingMediaTypes() {
+    }
+
+}
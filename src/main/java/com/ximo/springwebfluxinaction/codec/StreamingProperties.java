@@ -0,0 +1,43 @@
+package com.ximo.springwebfluxinaction.codec;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 流式响应参数
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.streaming")
+public class StreamingProperties {
+
+    /**
+     * 流式响应每个 buffer 写到多少字节发出并 flush, 多个元素共用一个 buffer
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 流式响应写了一部分的 buffer 最多等多久就发出, 上游元素来得慢时不会一直攒着, 0 表示只按字节数发出
+     */
+    private Duration maxLinger = BatchingJackson2Encoder.DEFAULT_MAX_LINGER;
+
+    /**
+     * 单次请求最多能要多少个元素
+     */
+    private int maxCount = 10_000_000;
+
+    /**
+     * 分页请求没有指定 limit 时每页的条数
+     */
+    private int defaultPageSize = 100;
+
+    /**
+     * 每页最多多少条, 分页的页面要能放心地整页处理
+     */
+    private int maxPageSize = 10_000;
+
+}
@@ -0,0 +1,33 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.admission.AdmissionProperties;
+import com.ximo.springwebfluxinaction.admission.AdmissionWebFilter;
+import com.ximo.springwebfluxinaction.security.ServiceTokenRequestMatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 限流和过载保护, 在指标和访问日志之后, security 之前, 被拒绝的请求照样有指标和访问日志;
+ * 带服务 token 的内部调用 (比如 /flux/webclient 回调自己) 不再算一次准入, 外层请求已经算过了
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE + 2)
+    @ConditionalOnProperty(prefix = "webflux.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AdmissionWebFilter admissionWebFilter(AdmissionProperties properties, MeterRegistry meterRegistry,
+                                                 ServiceTokenRequestMatcher serviceTokenRequestMatcher) {
+        return new AdmissionWebFilter(properties, meterRegistry, serviceTokenRequestMatcher);
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.ximo.springwebfluxinaction.codec.BatchingJackson2Encoder;
+import com.ximo.springwebfluxinaction.codec.StreamingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_NDJSON;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_SMILE;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_STREAM_SMILE;
+
+/**
+ * 服务端和 webclient 共用的 codec 配置
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(StreamingProperties.class)
+public class CodecConfig {
+
+    /**
+     * 在 boot 的 jackson 配置(order 0)之后执行
+     * <ul>
+     * <li>json decoder 额外支持 ndjson, 按行解析出多个对象</li>
+     * <li>json, ndjson, stream+json 都由 {@link BatchingJackson2Encoder} 写, 多个元素共用一个 buffer, 写满或者等满 max-linger 时 flush</li>
+     * </ul>
+     * 自定义 writer 排在默认的前面, 没指定 Accept 或者 Accept 为 * / * 时会选第一个能写的, 所以 application/json
+     * 要放在 encoder 支持的 media type 的第一个, 保证默认输出还是 application/json
+     */
+    @Bean
+    @Order(1)
+    public CodecCustomizer jsonCodecCustomizer(ObjectMapper objectMapper, StreamingProperties properties) {
+        return configurer -> {
+            configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper,
+                    MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), APPLICATION_NDJSON));
+
+            configurer.customCodecs().writer(new EncoderHttpMessageWriter<>(new BatchingJackson2Encoder(objectMapper,
+                    properties.getBufferSize(), properties.getMaxLinger(), Arrays.asList(APPLICATION_NDJSON, MediaType.APPLICATION_STREAM_JSON),
+                    MediaType.APPLICATION_JSON, APPLICATION_NDJSON, MediaType.APPLICATION_STREAM_JSON)));
+        };
+    }
+
+    /**
+     * smile 编解码, 用 boot 配置过的 jackson builder, 和 json 的序列化规则保持一致
+     * <p>
+     * spring 默认注册的 smile codec 用的是没有配置过的 ObjectMapper, 自定义 codec 排在默认的前面, 所以会先匹配到这里的.
+     * 排在 json 之后, 只有明确要 smile 时才用
+     */
+    @Bean
+    @Order(2)
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder,
+                                                StreamingProperties properties) {
+        final ObjectMapper smileMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory()).build();
+        return configurer -> {
+            configurer.customCodecs().reader(new DecoderHttpMessageReader<>(
+                    new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE)));
+            configurer.customCodecs().writer(new EncoderHttpMessageWriter<>(new BatchingJackson2Encoder(smileMapper,
+                    properties.getBufferSize(), properties.getMaxLinger(), Collections.singletonList(APPLICATION_STREAM_SMILE),
+                    APPLICATION_SMILE, APPLICATION_STREAM_SMILE)));
+        };
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.store.ExampleStore;
+import com.ximo.springwebfluxinaction.store.ExampleStoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 堆外的 ExampleDTO 存储, 由 exampleBatchSink 在每批提交后写入, 指标 (webflux.store.*) 由 boot 绑定
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ExampleStoreProperties.class)
+public class ExampleStoreConfig {
+
+    @Bean
+    public ExampleStore exampleStore(ExampleStoreProperties properties) throws IOException {
+        if (StringUtils.hasText(properties.getSnapshot())) {
+            final Path snapshot = Paths.get(properties.getSnapshot());
+            if (Files.exists(snapshot)) {
+                final ExampleStore store = ExampleStore.load("example", snapshot);
+                log.info("loaded {} examples from {}", store.size(), snapshot);
+                return store;
+            }
+        }
+        return new ExampleStore("example", properties.getInitialCapacity(), properties.getInitialArenaBytes());
+    }
+
+    /**
+     * 关闭时写快照, 依赖 exampleStore 所以在它之前销毁
+     */
+    @Bean
+    public DisposableBean exampleStoreSnapshot(ExampleStore exampleStore, ExampleStoreProperties properties) {
+        return () -> {
+            if (StringUtils.hasText(properties.getSnapshot())) {
+                final Path snapshot = Paths.get(properties.getSnapshot());
+                exampleStore.snapshot(snapshot);
+                log.info("saved {} examples to {}", exampleStore.size(), snapshot);
+            }
+        };
+    }
+
+}
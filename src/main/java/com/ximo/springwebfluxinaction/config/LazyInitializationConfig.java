@@ -0,0 +1,39 @@
+package com.ximo.springwebfluxinaction.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.reactive.HandlerAdapter;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.HandlerResultHandler;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.server.WebExceptionHandler;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebHandler;
+
+/**
+ * 打开延迟初始化 (fast-startup) 时, 处理请求的 webflux 基础设施仍然在启动时创建
+ * <p>
+ * 否则 httpHandler, handler mapping, codec 和 security 的 filter chain 都由第一个请求在 event loop 上创建,
+ * 类加载和读文件都发生在 event loop 上
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    /**
+     * static: LazyInitializationBeanFactoryPostProcessor 在 bean factory 后处理阶段就要拿到它
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter webInfrastructureLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(HttpHandler.class, WebHandler.class, HandlerMapping.class,
+                HandlerAdapter.class, HandlerResultHandler.class, WebExceptionHandler.class, WebFilter.class,
+                ServerCodecConfigurer.class, SecurityWebFilterChain.class, RouterFunction.class);
+    }
+
+}
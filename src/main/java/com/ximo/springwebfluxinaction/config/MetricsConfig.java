@@ -0,0 +1,92 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.batch.MicroBatcher;
+import com.ximo.springwebfluxinaction.client.WebClientFactory;
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.metrics.ActiveRequestsWebFilter;
+import com.ximo.springwebfluxinaction.metrics.EventLoopMetrics;
+import com.ximo.springwebfluxinaction.metrics.ReactorMetricsProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+
+/**
+ * 指标: 路由的耗时由 boot 的 http.server.requests 记录, 这里补上 event loop, 连接池, 批量写入和在途请求
+ * <p>
+ * 通过 /actuator/prometheus 导出
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(ReactorMetricsProperties.class)
+public class MetricsConfig {
+
+    private static final String NETTY_SERVER_METRICS_PREFIX = "reactor.netty.http.server";
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public ActiveRequestsWebFilter activeRequestsWebFilter(MeterRegistry meterRegistry) {
+        return new ActiveRequestsWebFilter(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder eventLoopMetrics(ReactorResourceFactory reactorResourceFactory) {
+        return new EventLoopMetrics(reactorResourceFactory.getLoopResources());
+    }
+
+    @Bean
+    public MeterBinder webClientPoolMetrics(WebClientFactory webClientFactory) {
+        return webClientFactory.getPoolRegistry();
+    }
+
+    @Bean
+    public MeterBinder exampleBatchMetrics(MicroBatcher<ExampleDTO> exampleBatcher) {
+        return registry -> Gauge.builder("webflux.batch.pending", exampleBatcher, MicroBatcher::getPending)
+                .tag("batcher", "example")
+                .description("writes waiting for their batch to be committed")
+                .register(registry);
+    }
+
+    /**
+     * reactor netty 自己的指标能区分读请求体和写响应体的时间, uri 只保留前两段,
+     * 数量上限见 {@link #nettyServerUriTagFilter(ReactorMetricsProperties)}
+     */
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyServerMetricsCustomizer(
+            ReactorMetricsProperties properties) {
+        return factory -> {
+            if (properties.isNettyServer()) {
+                factory.addServerCustomizers(httpServer -> httpServer.metrics(true, MetricsConfig::uriTag));
+            }
+        };
+    }
+
+    /**
+     * 前两段只能挡住带 id 的路径, 扫描器之类随便请求的路径仍然每个都是一个新标签; 超过上限的 uri 不再记录,
+     * 和 boot 对 http.server.requests 的 max-uri-tags 一样
+     */
+    @Bean
+    public MeterFilter nettyServerUriTagFilter(ReactorMetricsProperties properties) {
+        return MeterFilter.maximumAllowableTags(NETTY_SERVER_METRICS_PREFIX, "uri",
+                properties.getMaxNettyServerUris(), MeterFilter.deny());
+    }
+
+    static String uriTag(String uri) {
+        int end = uri.indexOf('?');
+        final String path = end < 0 ? uri : uri.substring(0, end);
+        end = path.indexOf('/', 1);
+        end = end < 0 ? -1 : path.indexOf('/', end + 1);
+        return end < 0 ? path : path.substring(0, end);
+    }
+
+}
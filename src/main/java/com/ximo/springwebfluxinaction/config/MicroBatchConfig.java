@@ -0,0 +1,40 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.batch.BatchSink;
+import com.ximo.springwebfluxinaction.batch.MicroBatchProperties;
+import com.ximo.springwebfluxinaction.batch.MicroBatcher;
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.repository.ExampleRepository;
+import com.ximo.springwebfluxinaction.rsocket.BroadcastHub;
+import com.ximo.springwebfluxinaction.store.ExampleStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(MicroBatchProperties.class)
+public class MicroBatchConfig {
+
+    /**
+     * 每一批在一个事务里写入数据库, 提交后写进堆外存储, 再广播给 rsocket 的订阅者
+     */
+    @Bean
+    public BatchSink<ExampleDTO> exampleBatchSink(ExampleRepository exampleRepository, ExampleStore exampleStore,
+                                                  BroadcastHub<ExampleDTO> exampleHub) {
+        return batch -> exampleRepository.saveAll(batch)
+                .doOnSuccess(committed -> {
+                    exampleStore.putAll(batch);
+                    exampleHub.publishAll(batch);
+                });
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public MicroBatcher<ExampleDTO> exampleBatcher(BatchSink<ExampleDTO> exampleBatchSink, MicroBatchProperties properties) {
+        return new MicroBatcher<>(exampleBatchSink, properties);
+    }
+
+}
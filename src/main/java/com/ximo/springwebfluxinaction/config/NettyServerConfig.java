@@ -0,0 +1,88 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.server.ConnectionLimiter;
+import com.ximo.springwebfluxinaction.server.Http2SettingsUpdater;
+import com.ximo.springwebfluxinaction.server.IdleConnectionHandler;
+import com.ximo.springwebfluxinaction.server.NettyServerProperties;
+import com.ximo.springwebfluxinaction.server.SelfSignedSslStoreProvider;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * reactor netty 服务端配置: event loop 线程数, 连接上限, 空闲超时, http/2
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(NettyServerProperties.class)
+public class NettyServerConfig {
+
+    /**
+     * 服务端和 webclient 共用的 event loop, 没配置线程数时使用 reactor netty 的全局资源
+     */
+    @Bean
+    public ReactorResourceFactory reactorResourceFactory(NettyServerProperties properties) {
+        final ReactorResourceFactory resourceFactory = new ReactorResourceFactory();
+        if (properties.getEventLoopThreads() > 0) {
+            resourceFactory.setUseGlobalResources(false);
+            resourceFactory.setLoopResourcesSupplier(() -> LoopResources.create("webflux-http",
+                    properties.getSelectThreads(), properties.getEventLoopThreads(), true));
+        }
+        return resourceFactory;
+    }
+
+    @Bean
+    public ConnectionLimiter connectionLimiter(NettyServerProperties properties) {
+        return new ConnectionLimiter(properties.getMaxConnections());
+    }
+
+    /**
+     * 在 boot 处理完 server.* 之后执行, 能看到 server.ssl 和 server.http2 的配置
+     */
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyServerCustomizer(
+            NettyServerProperties properties, ConnectionLimiter connectionLimiter) {
+        final Http2SettingsUpdater http2SettingsUpdater = new Http2SettingsUpdater(properties.getHttp2());
+        return factory -> {
+            if (properties.getHttp2().isSelfSigned() && !isSslEnabled(factory)) {
+                final SelfSignedSslStoreProvider sslStoreProvider = new SelfSignedSslStoreProvider();
+                factory.setSsl(sslStoreProvider.ssl());
+                factory.setSslStoreProvider(sslStoreProvider);
+            }
+            factory.addServerCustomizers(httpServer -> h2c(factory, httpServer)
+                    .tcpConfiguration(tcpServer -> tcpServer
+                            .selectorOption(ChannelOption.SO_BACKLOG, properties.getBacklog())
+                            .doOnConnection(connection -> {
+                                connectionLimiter.accept(connection);
+                                if (!connection.isDisposed()) {
+                                    IdleConnectionHandler.install(connection, properties.getIdleTimeout());
+                                    http2SettingsUpdater.accept(connection);
+                                }
+                            })));
+        };
+    }
+
+    /**
+     * boot 2.2 只在配置了 ssl 时开 h2, 没有 ssl 时这里补上 h2c (prior knowledge 和 http/1.1 升级都支持)
+     */
+    private static HttpServer h2c(NettyReactiveWebServerFactory factory, HttpServer httpServer) {
+        if (factory.getHttp2() == null || !factory.getHttp2().isEnabled() || isSslEnabled(factory)) {
+            return httpServer;
+        }
+        return httpServer.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+
+    private static boolean isSslEnabled(NettyReactiveWebServerFactory factory) {
+        return factory.getSsl() != null && factory.getSsl().isEnabled();
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.stage.ExampleDigest;
+import com.ximo.springwebfluxinaction.stage.ParallelStage;
+import com.ximo.springwebfluxinaction.stage.ParallelStageProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * cpu 密集的转换用单独的 parallel scheduler, 不和 Schedulers.parallel() 上的定时器 (timeout, delay) 抢线程
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(ParallelStageProperties.class)
+public class ParallelStageConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler parallelStageScheduler(ParallelStageProperties properties) {
+        return Schedulers.newParallel("stage", properties.resolveRails(), true);
+    }
+
+    @Bean
+    public ParallelStage<ExampleDTO, ExampleDTO> exampleDigestStage(Scheduler parallelStageScheduler,
+                                                                    ParallelStageProperties properties) {
+        return new ParallelStage<>(new ExampleDigest(properties.getDigestRounds()), parallelStageScheduler,
+                properties.resolveRails(), properties.getMinBatchSize(), properties.getMaxBatchSize(),
+                properties.getTargetBatchTime());
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.repository.ExampleRepository;
+import com.ximo.springwebfluxinaction.repository.R2dbcProperties;
+import com.ximo.springwebfluxinaction.scheduler.SchedulerRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class R2dbcConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionPool(R2dbcProperties properties) {
+        final ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(properties.getUrl())
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, properties.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, properties.getPassword())
+                .build();
+        final R2dbcProperties.Pool pool = properties.getPool();
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("example")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxAcquireTime(pool.getMaxAcquireTime())
+                .validationQuery(pool.getValidationQuery())
+                .build());
+    }
+
+    /**
+     * 嵌入式 h2 在调用线程上同步执行, 用 webflux.schedulers.executors.r2dbc 这个线程池, 由 registry 负责关闭
+     */
+    @Bean(destroyMethod = "")
+    public Scheduler r2dbcScheduler(R2dbcProperties properties, SchedulerRegistry schedulerRegistry) {
+        if (!properties.isOffload()) {
+            return Schedulers.immediate();
+        }
+        return schedulerRegistry.get("r2dbc");
+    }
+
+    @Bean
+    public ExampleRepository exampleRepository(ConnectionPool connectionPool, Scheduler r2dbcScheduler,
+                                               R2dbcProperties properties) {
+        final ExampleRepository repository = new ExampleRepository(connectionPool, properties.getFetchSize(), r2dbcScheduler);
+        // 启动时在 main 线程建表
+        repository.createSchema().block(Duration.ofSeconds(10));
+        return repository;
+    }
+
+}
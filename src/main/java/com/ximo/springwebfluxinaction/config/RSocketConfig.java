@@ -0,0 +1,42 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.rsocket.BearerTokenSocketAcceptorInterceptor;
+import com.ximo.springwebfluxinaction.rsocket.BroadcastHub;
+import com.ximo.springwebfluxinaction.rsocket.RSocketStreamProperties;
+import com.ximo.springwebfluxinaction.rsocket.StreamLimitInterceptor;
+import com.ximo.springwebfluxinaction.security.CachingTokenAuthenticationManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.rsocket.server.ServerRSocketFactoryProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * rsocket 端点挂在 webflux 的端口上 (websocket, 见 spring.rsocket.server.mapping-path), 处理方法见 ExampleStreamController
+ * <p>
+ * 背压用 rsocket 自己的 REQUEST_N: 客户端给多少额度就发多少, request-channel 向客户端要的额度见 webflux.rsocket.inbound-prefetch
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(RSocketStreamProperties.class)
+public class RSocketConfig {
+
+    /**
+     * 新提交的 ExampleDTO 的广播, 指标 (webflux.broadcast.*) 由 boot 绑定
+     */
+    @Bean(destroyMethod = "dispose")
+    public BroadcastHub<ExampleDTO> exampleHub(RSocketStreamProperties properties) {
+        return new BroadcastHub<>("example", properties.getSubscriberBuffer(), properties.getSlowConsumerPolicy());
+    }
+
+    @Bean
+    public ServerRSocketFactoryProcessor rsocketStreamLimits(RSocketStreamProperties properties,
+                                                             CachingTokenAuthenticationManager tokenAuthenticationManager) {
+        return factory -> factory
+                .addSocketAcceptorPlugin(new BearerTokenSocketAcceptorInterceptor(tokenAuthenticationManager, "USER"))
+                .addResponderPlugin(new StreamLimitInterceptor(properties.getMaxStreamsPerConnection()));
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.logging.AccessLogWebFilter;
+import com.ximo.springwebfluxinaction.logging.LogSampler;
+import com.ximo.springwebfluxinaction.logging.RequestLogProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 访问日志, 输出方式见 logback-spring.xml
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(RequestLogProperties.class)
+public class RequestLogConfig {
+
+    @Bean
+    public LogSampler accessLogSampler(RequestLogProperties properties) {
+        return new LogSampler(properties.getSampleRate(), properties.getMaxPerSecond());
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @ConditionalOnProperty(prefix = "webflux.logging", name = "access-log", havingValue = "true", matchIfMissing = true)
+    public AccessLogWebFilter accessLogWebFilter(LogSampler accessLogSampler) {
+        return new AccessLogWebFilter(accessLogSampler);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.cache.CachingHandlerFilter;
+import com.ximo.springwebfluxinaction.cache.CaffeineResponseCache;
+import com.ximo.springwebfluxinaction.cache.ResponseCache;
+import com.ximo.springwebfluxinaction.cache.ResponseCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCache responseCache(ResponseCacheProperties properties) {
+        return new CaffeineResponseCache(properties.getMaxBytes(), properties.getTtl());
+    }
+
+    /**
+     * 用服务端同一套 codec 渲染要缓存的响应
+     */
+    @Bean
+    public CachingHandlerFilter cachingHandlerFilter(ResponseCache responseCache,
+                                                     ServerCodecConfigurer serverCodecConfigurer) {
+        return new CachingHandlerFilter(responseCache, serverCodecConfigurer.getWriters());
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.scheduler.BlockingHandlers;
+import com.ximo.springwebfluxinaction.scheduler.SchedulerProperties;
+import com.ximo.springwebfluxinaction.scheduler.SchedulerRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 阻塞调用统一从 {@link SchedulerRegistry} 按名字取线程池, 不直接用 Schedulers.elastic()/boundedElastic()
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+@EnableConfigurationProperties(SchedulerProperties.class)
+public class SchedulerConfig {
+
+    @Bean
+    public SchedulerRegistry schedulerRegistry(SchedulerProperties properties) {
+        return new SchedulerRegistry(properties);
+    }
+
+    /**
+     * 阻塞写法的 handler 在 webflux.schedulers.executors.handlers 上执行
+     */
+    @Bean
+    public BlockingHandlers blockingHandlers(SchedulerRegistry schedulerRegistry) {
+        return new BlockingHandlers(schedulerRegistry.get("handlers"));
+    }
+
+}
@@ -1,10 +1,31 @@
 package com.ximo.springwebfluxinaction.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ximo.springwebfluxinaction.security.BearerTokenConverter;
+import com.ximo.springwebfluxinaction.security.CachingTokenAuthenticationManager;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import com.ximo.springwebfluxinaction.security.ServiceTokenExchangeFilter;
+import com.ximo.springwebfluxinaction.security.ServiceTokenRequestMatcher;
+import com.ximo.springwebfluxinaction.security.TokenProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.util.StringUtils;
+
+import java.security.SecureRandom;
+import java.util.Base64;
 
 /**
  * mvc config:
@@ -23,19 +44,82 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
  *
  * }
  *
+ * /flux/** 需要 Authorization: Bearer token, token 的签发和校验见 {@link HmacTokenCodec}, 校验结果有缓存;
+ * 无状态, 不保存 SecurityContext
  *
  * @author xikl
  * @date 2019/11/25
  */
+@Slf4j
 @Configuration
 @EnableWebFluxSecurity
+@EnableConfigurationProperties(TokenProperties.class)
 public class SecurityConfig {
 
+    private static final String PROTECTED_PATHS = "/flux/**";
+
+    @Bean
+    public HmacTokenCodec hmacTokenCodec(TokenProperties properties, ObjectMapper objectMapper) {
+        final byte[] secret;
+        if (StringUtils.hasText(properties.getSecret())) {
+            secret = Base64.getDecoder().decode(properties.getSecret());
+        } else {
+            log.warn("webflux.security.token.secret is not set, using a random secret; "
+                    + "only tokens issued by this process will be accepted");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        }
+        return new HmacTokenCodec(secret, properties.getIssuer(), properties.getClockSkew(), objectMapper);
+    }
+
+    /**
+     * 同时也让 boot 不再创建默认的内存用户
+     */
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity serverHttpSecurity) {
+    public CachingTokenAuthenticationManager tokenAuthenticationManager(HmacTokenCodec hmacTokenCodec,
+                                                                        TokenProperties properties) {
+        return new CachingTokenAuthenticationManager(hmacTokenCodec, properties.getCacheMaxSize(),
+                properties.getCacheTtl());
+    }
+
+    @Bean
+    public ServiceTokenExchangeFilter serviceTokenExchangeFilter(HmacTokenCodec hmacTokenCodec,
+                                                                 TokenProperties properties) {
+        return new ServiceTokenExchangeFilter(hmacTokenCodec, properties.getServiceSubject(),
+                properties.getServiceAuthorities(), properties.getServiceTokenTtl());
+    }
+
+    @Bean
+    public ServiceTokenRequestMatcher serviceTokenRequestMatcher(
+            CachingTokenAuthenticationManager tokenAuthenticationManager, TokenProperties properties) {
+        return new ServiceTokenRequestMatcher(tokenAuthenticationManager, properties.getServiceSubject());
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity serverHttpSecurity,
+                                                         CachingTokenAuthenticationManager tokenAuthenticationManager) {
+        final HttpStatusServerEntryPoint unauthorized = new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED);
+        final AuthenticationWebFilter tokenFilter = new AuthenticationWebFilter(tokenAuthenticationManager);
+        tokenFilter.setServerAuthenticationConverter(new BearerTokenConverter());
+        tokenFilter.setRequiresAuthenticationMatcher(ServerWebExchangeMatchers.pathMatchers(PROTECTED_PATHS));
+        tokenFilter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(unauthorized));
+        tokenFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
         return serverHttpSecurity
+                // 纯 json 接口, 没有浏览器表单和 session
+                .csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                // 默认的 request cache 每个请求都会建 WebSession, session id 用 SecureRandom 生成, 会阻塞 event loop
+                .requestCache().requestCache(NoOpServerRequestCache.getInstance())
+                .and()
+                .exceptionHandling().authenticationEntryPoint(unauthorized)
+                .and()
+                .addFilterAt(tokenFilter, SecurityWebFiltersOrder.AUTHENTICATION)
                 .authorizeExchange()
-//                .pathMatchers("/flux/**").hasAuthority("USER")
+                .pathMatchers(PROTECTED_PATHS).hasAuthority("USER")
                 .anyExchange().permitAll()
                 .and()
                 .build();
@@ -0,0 +1,46 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.startup.StartupProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * 启动优化里需要 bean 的部分, 开关见 {@link StartupProperties}
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * 项目里没有 @Valid 参数, 但 webflux 的自动配置仍然会在启动时创建 hibernate validator, 加载几百个类还要解析 xml;
+     * 关掉 bean validation 时换成什么都不校验的 validator
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = StartupProperties.PREFIX, name = "bean-validation", havingValue = "false")
+    public WebFluxConfigurer noValidationWebFluxConfigurer() {
+        return new WebFluxConfigurer() {
+
+            @Override
+            public Validator getValidator() {
+                return new Validator() {
+
+                    @Override
+                    public boolean supports(Class<?> clazz) {
+                        return false;
+                    }
+
+                    @Override
+                    public void validate(Object target, Errors errors) {
+                    }
+                };
+            }
+        };
+    }
+
+}
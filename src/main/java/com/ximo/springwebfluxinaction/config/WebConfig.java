@@ -1,7 +1,20 @@
 package com.ximo.springwebfluxinaction.config;
 
+import com.ximo.springwebfluxinaction.client.FanOutClient;
+import com.ximo.springwebfluxinaction.client.ProxyProperties;
+import com.ximo.springwebfluxinaction.client.SingleFlight;
+import com.ximo.springwebfluxinaction.client.WebClientFactory;
+import com.ximo.springwebfluxinaction.client.WebClientProperties;
+import com.ximo.springwebfluxinaction.resilience.DeadlineWebFilter;
+import com.ximo.springwebfluxinaction.resilience.ResilienceExchangeFilter;
+import com.ximo.springwebfluxinaction.security.ServiceTokenExchangeFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
 import org.springframework.web.reactive.function.client.WebClient;
 
 /**
@@ -9,11 +22,57 @@ import org.springframework.web.reactive.function.client.WebClient;
  * @date 2019/11/23
  */
 @Configuration
+@EnableConfigurationProperties({WebClientProperties.class, ProxyProperties.class})
 public class WebConfig {
 
+    /**
+     * 保留 boot 自动配置的 codec 等定制, 只替换底层的连接池和超时
+     */
     @Bean
-    public WebClient webClient() {
-        return WebClient.create("http://localhost:8080");
+    public WebClientFactory webClientFactory(WebClientProperties properties,
+                                             ReactorResourceFactory reactorResourceFactory,
+                                             ObjectProvider<WebClient.Builder> webClientBuilder) {
+        return new WebClientFactory(properties, reactorResourceFactory,
+                () -> webClientBuilder.getIfAvailable(WebClient::builder));
+    }
+
+    /**
+     * 上游是本服务的 /flux/**, 请求时带上服务自己的 token; 容错层在最外面, 每次重试和对冲都会重新带上 token
+     */
+    @Bean
+    public WebClient webClient(WebClientFactory webClientFactory, WebClientProperties properties,
+                               ServiceTokenExchangeFilter serviceTokenExchangeFilter) {
+        final WebClient.Builder builder = webClientFactory.builder()
+                .baseUrl(properties.getBaseUrl());
+        if (properties.getResilience().isEnabled()) {
+            builder.filter(new ResilienceExchangeFilter(properties.getResilience()));
+        }
+        return builder
+                .filter(serviceTokenExchangeFilter)
+                .build();
+    }
+
+    /**
+     * 在准入控制之后, 被拒绝的请求不用管截止时间
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE + 3)
+    public DeadlineWebFilter deadlineWebFilter() {
+        return new DeadlineWebFilter();
+    }
+
+    @Bean
+    public FanOutClient fanOutClient(WebClient webClient, ProxyProperties proxyProperties,
+                                     SingleFlight<String> proxySingleFlight) {
+        return new FanOutClient(webClient, proxyProperties, proxySingleFlight);
+    }
+
+    /**
+     * 单独的 bean, 指标 (webflux.singleflight.*) 由 boot 绑定
+     */
+    @Bean
+    public SingleFlight<String> proxySingleFlight(ProxyProperties proxyProperties) {
+        return FanOutClient.singleFlight(proxyProperties.getDedup());
     }
 
 
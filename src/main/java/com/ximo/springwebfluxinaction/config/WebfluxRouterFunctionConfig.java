@@ -1,11 +1,22 @@
 package com.ximo.springwebfluxinaction.config;
 
+import com.ximo.springwebfluxinaction.batch.BatchRejectedException;
+import com.ximo.springwebfluxinaction.batch.MicroBatcher;
+import com.ximo.springwebfluxinaction.cache.CachingHandlerFilter;
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.domain.SaveResultDTO;
+import com.ximo.springwebfluxinaction.repository.ExampleRepository;
+import com.ximo.springwebfluxinaction.scheduler.BlockingHandlers;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
@@ -14,31 +25,67 @@ import static org.springframework.web.reactive.function.server.RouterFunctions.r
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 
 /**
+ * 函数式端点, bean 也用函数式注册 (见 META-INF/spring.factories): 不扫描, 不生成 cglib 代理, 也不用反射调用工厂方法,
+ * 省掉启动时解析配置类的开销
+ *
  * @author xikl
  * @date 2019/11/23
  */
 @Slf4j
-@Configuration
-public class WebfluxRouterFunctionConfig {
+public class WebfluxRouterFunctionConfig implements ApplicationContextInitializer<GenericApplicationContext> {
+
+    @Override
+    public void initialize(GenericApplicationContext context) {
+        context.registerBean("helloWebfluxRouterFunction", RouterFunction.class, () -> helloWebfluxRouterFunction(
+                context.getBean(CachingHandlerFilter.class),
+                context.<MicroBatcher<ExampleDTO>>getBeanProvider(
+                        ResolvableType.forClassWithGenerics(MicroBatcher.class, ExampleDTO.class)).getObject(),
+                context.getBean(BlockingHandlers.class)));
+    }
 
     /**
      * webflux的函数式端点的方式
      *
+     * @param cachingHandlerFilter GET /example 的响应缓存
+     * @param exampleBatcher       POST /example 的批量写入
+     * @param blockingHandlers     GET /blocking/example 在 handler 线程池上执行, 不走响应缓存
      * @return 函数式端点方式
      */
-    @Bean
-    public RouterFunction<?> helloWebfluxRouterFunction() {
-        return route(GET("/example"), this::listExamples)
-                .andRoute(POST("/example"), this::saveSomething);
+    public RouterFunction<?> helloWebfluxRouterFunction(CachingHandlerFilter cachingHandlerFilter,
+                                                        MicroBatcher<ExampleDTO> exampleBatcher,
+                                                        BlockingHandlers blockingHandlers) {
+        return route(GET("/example"), cachingHandlerFilter.apply(this::listExamples))
+                .andRoute(GET("/blocking/example"), blockingHandlers.handler(this::listExamples))
+                .andRoute(POST("/example"), request -> saveExamples(request, exampleBatcher))
+                .andRoute(GET("/cache/stats"), request -> ok().bodyValue(cachingHandlerFilter.stats()));
     }
 
-    private Mono<ServerResponse> saveSomething(ServerRequest serverRequest) {
-        return ok().body(Mono.just("save something"), String.class);
+    /**
+     * 单个 json, json 数组或者 ndjson 流都可以, 所有数据提交后才返回
+     * <p>
+     * 每条数据进批之前先检查, 写不进去的只让这个请求 400, 不会混进别的请求的批次让它们一起失败;
+     * 流里出错之前的数据可能已经提交了
+     */
+    private Mono<ServerResponse> saveExamples(ServerRequest serverRequest, MicroBatcher<ExampleDTO> exampleBatcher) {
+        final Flux<ExampleDTO> examples = serverRequest.bodyToFlux(ExampleDTO.class)
+                .handle((example, sink) -> {
+                    final String invalid = ExampleRepository.validate(example);
+                    if (invalid != null) {
+                        sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, invalid));
+                    } else {
+                        sink.next(example);
+                    }
+                });
+        return exampleBatcher.submitAll(examples)
+                .onErrorMap(BatchRejectedException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e))
+                .flatMap(saved -> ok().bodyValue(new SaveResultDTO(saved)));
     }
 
     private Mono<ServerResponse> listExamples(ServerRequest serverRequest) {
         final String result = "hello webflux router function";
-        log.info("hello: {}", result);
+        // 每次请求都会走到这里, 只在 debug 时输出, 访问日志见 AccessLogWebFilter
+        log.debug("hello: {}", result);
         return ok().body(Mono.just(result), String.class);
     }
 
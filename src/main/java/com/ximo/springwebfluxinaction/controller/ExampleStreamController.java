@@ -0,0 +1,66 @@
+package com.ximo.springwebfluxinaction.controller;
+
+import com.ximo.springwebfluxinaction.batch.BatchRejectedException;
+import com.ximo.springwebfluxinaction.batch.MicroBatcher;
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.repository.ExampleRepository;
+import com.ximo.springwebfluxinaction.rsocket.BroadcastHub;
+import com.ximo.springwebfluxinaction.rsocket.RSocketStreamProperties;
+import io.rsocket.exceptions.RejectedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+/**
+ * rsocket 的长连接端点, 客户端不用再循环请求 /flux/example
+ * <p>
+ * 连接建立时认证, 每个连接的流数有上限, 见 RSocketConfig
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Controller
+public class ExampleStreamController {
+
+    @Autowired
+    private BroadcastHub<ExampleDTO> exampleHub;
+
+    @Autowired
+    private MicroBatcher<ExampleDTO> exampleBatcher;
+
+    @Autowired
+    private ExampleRepository exampleRepository;
+
+    @Autowired
+    private RSocketStreamProperties properties;
+
+    /**
+     * request-stream: 订阅之后提交的数据, 不会结束
+     */
+    @MessageMapping("examples.live")
+    public Flux<ExampleDTO> live() {
+        return exampleHub.subscribe();
+    }
+
+    /**
+     * request-stream: 已保存的数据, 按客户端给的额度从数据库游标上读
+     */
+    @MessageMapping("examples.stored")
+    public Flux<ExampleDTO> stored() {
+        return exampleRepository.findAll();
+    }
+
+    /**
+     * request-channel: 客户端发来的数据批量写入, 同时收到所有新提交的数据 (包括自己发的);
+     * 客户端发完后仍然可以继续收, 写入失败时结束整个 channel
+     */
+    @MessageMapping("examples.channel")
+    public Flux<ExampleDTO> channel(Flux<ExampleDTO> inbound) {
+        final Flux<ExampleDTO> saved = exampleBatcher.submitAll(inbound.limitRate(properties.getInboundPrefetch()))
+                .onErrorMap(BatchRejectedException.class, e -> new RejectedException(e.getMessage(), e))
+                .thenMany(Flux.empty());
+        return Flux.merge(exampleHub.subscribe(), saved);
+    }
+
+}
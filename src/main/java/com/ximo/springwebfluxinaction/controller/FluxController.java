@@ -1,25 +1,59 @@
 package com.ximo.springwebfluxinaction.controller;
 
+import com.ximo.springwebfluxinaction.client.FanOutClient;
+import com.ximo.springwebfluxinaction.client.ProxyProperties;
+import com.ximo.springwebfluxinaction.client.SingleFlight;
+import com.ximo.springwebfluxinaction.codec.BatchingJackson2Encoder;
+import com.ximo.springwebfluxinaction.codec.StreamingProperties;
 import com.ximo.springwebfluxinaction.config.WebConfig;
 import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.domain.ExampleProjection;
+import com.ximo.springwebfluxinaction.paging.PageCursor;
+import com.ximo.springwebfluxinaction.repository.ExampleRepository;
+import com.ximo.springwebfluxinaction.resilience.CircuitBreakerOpenException;
+import com.ximo.springwebfluxinaction.resilience.DeadlineExceededException;
+import com.ximo.springwebfluxinaction.scheduler.BlockingHandlers;
+import com.ximo.springwebfluxinaction.stage.ParallelStage;
+import com.ximo.springwebfluxinaction.stage.ParallelStageProperties;
+import com.ximo.springwebfluxinaction.store.ExampleStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.function.BiFunction;
 
-import static java.util.stream.Collectors.toList;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_NDJSON_VALUE;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_SMILE_VALUE;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_STREAM_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_STREAM_JSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 /**
+ * 请求的主路径, 打开延迟初始化 (fast-startup) 时也在启动时创建, 不让第一个请求去等
+ *
  * @author xikl
  * @date 2019/11/21
  */
 @Slf4j
+@Lazy(false)
 @RestController
 @RequestMapping("/flux")
 public class FluxController {
@@ -27,20 +61,235 @@ public class FluxController {
     /**
      * 自己请求自己项目的webclient
      *
-     * @see WebConfig#webClient()
+     * @see WebConfig#fanOutClient(WebClient, ProxyProperties, SingleFlight)
      */
     @Autowired
-    private WebClient webClient;
-
-    @GetMapping("/example")
-    public Flux<ExampleDTO> examples() {
-        final List<ExampleDTO> resultList = IntStream.rangeClosed(0, 9)
-                .boxed()
-                .map(i -> new ExampleDTO(i, "name" + i))
-                .collect(toList());
-        log.info("example: {}", resultList);
-        throw new UnsupportedOperationException();
-//        return Flux.fromIterable(resultList);
+    private FanOutClient fanOutClient;
+
+    @Autowired
+    private ProxyProperties proxyProperties;
+
+    @Autowired
+    private StreamingProperties streamingProperties;
+
+    @Autowired
+    private ExampleRepository exampleRepository;
+
+    @Autowired
+    private ExampleStore exampleStore;
+
+    @Autowired
+    private BlockingHandlers blockingHandlers;
+
+    @Autowired
+    private ParallelStage<ExampleDTO, ExampleDTO> exampleDigestStage;
+
+    @Autowired
+    private ParallelStageProperties parallelStageProperties;
+
+    /**
+     * 按需生成 id 为 0 到 count - 1 的数据, 不会先把整个列表放进内存
+     * <p>
+     * json 由 {@link BatchingJackson2Encoder} 边生成边写成一个数组, 不会先收集成列表; 但客户端要等数组结束才能解析,
+     * 想逐条处理时用 ndjson 或 sse
+     * <p>
+     * 带 after, limit 或 cursor 时按 id 分页 (keyset): 从 id 大于 after 的位置开始, 最多 limit 条; 还有下一页时响应头
+     * {@value PageCursor#HEADER} 和 Link 里是下一页的游标, 游标带着第一页的 count, limit 和 fields, 有 cursor 时其他参数都不看
+     *
+     * @param count  元素个数
+     * @param after  上一页最后一个 id, 不包含
+     * @param limit  每页条数, 见 webflux.streaming.default-page-size 和 max-page-size
+     * @param cursor 上一页响应头里的游标
+     * @param fields 只输出哪些字段, 逗号分隔, 比如 id 或 id,name
+     * @see PageCursor
+     */
+    @GetMapping(value = "/example", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_STREAM_JSON_VALUE, TEXT_EVENT_STREAM_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<?> examples(@RequestParam(defaultValue = "10") int count,
+                            @RequestParam(required = false) Integer after,
+                            @RequestParam(required = false) Integer limit,
+                            @RequestParam(required = false) String cursor,
+                            @RequestParam(required = false) String fields,
+                            ServerHttpRequest request, ServerHttpResponse response) {
+        if (cursor == null && after == null && limit == null) {
+            final ExampleProjection projection = projection(fields);
+            return examples(count).map(projection::apply);
+        }
+        final PageCursor page = cursor != null ? decodeCursor(cursor) : new PageCursor(after != null ? after : -1,
+                limit != null ? limit : streamingProperties.getDefaultPageSize(), count, projection(fields));
+        validateCount(page.getCount());
+        validateLimit(page.getLimit());
+        // id 是连续的, 直接定位到 after 的下一个, 和第几页无关
+        final long start = Math.max(0L, page.getAfterId() + 1L);
+        final long end = Math.min(page.getCount(), start + page.getLimit());
+        if (end < page.getCount()) {
+            setNextPage(new PageCursor((int) end - 1, page.getLimit(), page.getCount(), page.getProjection()),
+                    request, response);
+        }
+        return Flux.range((int) Math.min(start, end), (int) Math.max(0L, end - start))
+                .map(i -> page.getProjection().apply(new ExampleDTO(i, "name" + i)));
+    }
+
+    /**
+     * /flux/example 的全部数据, 没有分页和字段选择
+     */
+    private Flux<ExampleDTO> examples(int count) {
+        validateCount(count);
+        return Flux.range(0, count)
+                .map(i -> new ExampleDTO(i, "name" + i));
+    }
+
+    private void validateCount(int count) {
+        if (count < 0 || count > streamingProperties.getMaxCount()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "count must be between 0 and " + streamingProperties.getMaxCount());
+        }
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > streamingProperties.getMaxPageSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + streamingProperties.getMaxPageSize());
+        }
+    }
+
+    /**
+     * 按 id 分页读出已保存的数据, id 不连续, 多读一条来判断还有没有下一页
+     * <p>
+     * 下一页的游标要在写出第一个元素之前放进响应头, 所以整页读完再输出, 页的大小受 max-page-size 限制
+     *
+     * @param finder 按 (afterId, limit) 查询
+     */
+    private Flux<ExampleDTO> storedPage(@Nullable Integer after, @Nullable Integer limit, @Nullable String cursor,
+                                        BiFunction<Integer, Integer, Flux<ExampleDTO>> finder,
+                                        ServerHttpRequest request, ServerHttpResponse response) {
+        final PageCursor page = cursor != null ? decodeCursor(cursor) : new PageCursor(
+                after != null ? after : Integer.MIN_VALUE,
+                limit != null ? limit : streamingProperties.getDefaultPageSize(), 0, ExampleProjection.ALL);
+        validateLimit(page.getLimit());
+        return finder.apply(page.getAfterId(), page.getLimit() + 1)
+                .collectList()
+                .flatMapMany(rows -> {
+                    if (rows.size() <= page.getLimit()) {
+                        return Flux.fromIterable(rows);
+                    }
+                    final List<ExampleDTO> current = rows.subList(0, page.getLimit());
+                    setNextPage(new PageCursor(current.get(current.size() - 1).getId(), page.getLimit(), 0,
+                            ExampleProjection.ALL), request, response);
+                    return Flux.fromIterable(current);
+                });
+    }
+
+    private static void setNextPage(PageCursor next, ServerHttpRequest request, ServerHttpResponse response) {
+        final String encoded = next.encode();
+        response.getHeaders().set(PageCursor.HEADER, encoded);
+        response.getHeaders().set(HttpHeaders.LINK, "<" + UriComponentsBuilder.fromPath(request.getPath().value())
+                .queryParam("cursor", encoded)
+                .build() + ">; rel=\"next\"");
+    }
+
+    private static ExampleProjection projection(String fields) {
+        try {
+            return ExampleProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static PageCursor decodeCursor(String cursor) {
+        try {
+            return PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * 和 /flux/example 一样的数据, name 换成 sha-256, 分到所有核上计算
+     *
+     * @param count   元素个数
+     * @param ordered 是否按 id 顺序输出, 不传时使用配置
+     * @see ParallelStage
+     */
+    @GetMapping(value = "/example/digest", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_STREAM_JSON_VALUE, TEXT_EVENT_STREAM_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<ExampleDTO> digestExamples(@RequestParam(defaultValue = "10") int count,
+                                           @RequestParam(required = false) Boolean ordered) {
+        return exampleDigestStage.apply(examples(count),
+                ordered != null ? ordered : parallelStageProperties.isOrdered());
+    }
+
+    /**
+     * 和 /flux/example 一样的数据, 按阻塞的写法先生成整个列表, 在 handler 线程池(虚拟线程)上执行
+     *
+     * @param count 元素个数
+     * @see BlockingHandlers
+     */
+    @GetMapping(value = "/blocking/example", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_STREAM_JSON_VALUE, TEXT_EVENT_STREAM_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<ExampleDTO> blockingExamples(@RequestParam(defaultValue = "10") int count) {
+        return blockingHandlers.flux(() -> {
+            if (count < 0 || count > streamingProperties.getMaxCount()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "count must be between 0 and " + streamingProperties.getMaxCount());
+            }
+            final List<ExampleDTO> examples = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                examples.add(new ExampleDTO(i, "name" + i));
+            }
+            return examples;
+        });
+    }
+
+    /**
+     * 按 id 顺序读出已保存的数据, 从数据库游标上边读边写
+     * <p>
+     * 带 after, limit 或 cursor 时和 /flux/example 一样按 id 分页, 响应头的游标和每页上限也一样
+     *
+     * @param after  上一页最后一个 id, 不包含
+     * @param limit  每页条数
+     * @param cursor 上一页响应头里的游标, 有 cursor 时其他参数都不看
+     */
+    @GetMapping(value = "/stored", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_STREAM_JSON_VALUE, TEXT_EVENT_STREAM_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<ExampleDTO> stored(@RequestParam(required = false) Integer after,
+                                   @RequestParam(required = false) Integer limit,
+                                   @RequestParam(required = false) String cursor,
+                                   ServerHttpRequest request, ServerHttpResponse response) {
+        if (cursor == null && after == null && limit == null) {
+            return exampleRepository.findAll();
+        }
+        return storedPage(after, limit, cursor, exampleRepository::findAfter, request, response);
+    }
+
+    /**
+     * 从堆外存储按 id 顺序读出 [from, to] 之间的数据, 下游请求了才生成 ExampleDTO
+     * <p>
+     * 带 after, limit 或 cursor 时按 id 分页, 和 /flux/stored 一样, 这时不看 from 和 to
+     *
+     * @see ExampleStore
+     */
+    @GetMapping(value = "/store", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_STREAM_JSON_VALUE, TEXT_EVENT_STREAM_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<ExampleDTO> storeRange(@RequestParam(defaultValue = "" + Integer.MIN_VALUE) int from,
+                                       @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int to,
+                                       @RequestParam(required = false) Integer after,
+                                       @RequestParam(required = false) Integer limit,
+                                       @RequestParam(required = false) String cursor,
+                                       ServerHttpRequest request, ServerHttpResponse response) {
+        if (cursor == null && after == null && limit == null) {
+            return exampleStore.findRange(from, to);
+        }
+        return storedPage(after, limit, cursor, exampleStore::findAfter, request, response);
+    }
+
+    @GetMapping(value = "/store/{id}", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ExampleDTO> storeGet(@PathVariable int id) {
+        final ExampleDTO example = exampleStore.get(id);
+        if (example == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "example " + id + " not found"));
+        }
+        return Mono.just(example);
     }
 
     /**
@@ -51,18 +300,19 @@ public class FluxController {
      * .exchange()
      * .flatMapMany(clientResponse -> clientResponse.bodyToFlux(ExampleDTO.class));
      *
+     * 同时请求配置的所有上游, 并发数和预取量见 webflux.proxy;
+     * 上游熔断返回 503, 超过截止时间返回 504 (只在还没开始写响应时有效)
      *
-     * @return
+     * @param ordered 是否按上游顺序输出, 不传时使用配置
+     * @return 合并后的结果
+     * @see FanOutClient
      */
-    @GetMapping("/webclient")
-    public Flux<ExampleDTO> invokeByWebClient() {
+    @GetMapping(value = "/webclient", produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_STREAM_JSON_VALUE, TEXT_EVENT_STREAM_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<ExampleDTO> invokeByWebClient(@RequestParam(required = false) Boolean ordered) {
         // 发起请求
-        final Flux<ExampleDTO> result = webClient.get()
-                .uri("/flux/example")
-                .exchange()
-                .flatMapMany(clientResponse -> clientResponse.bodyToFlux(ExampleDTO.class));
-//                .retrieve()
-//                .bodyToFlux(ExampleDTO.class);
+        final Flux<ExampleDTO> result = upstreamErrors(fanOutClient.fanOut(ExampleDTO.class,
+                ordered != null ? ordered : proxyProperties.isOrdered()));
 
         // 切记不要订阅 否则会出现触发两次的问题
         //result.subscribe();
@@ -70,4 +320,15 @@ public class FluxController {
         return result;
     }
 
+    /**
+     * 容错层的异常转换成对应的状态码, 否则会按未知异常返回 500
+     */
+    static <T> Flux<T> upstreamErrors(Flux<T> result) {
+        return result
+                .onErrorMap(CircuitBreakerOpenException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e))
+                .onErrorMap(DeadlineExceededException.class,
+                        e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), e));
+    }
+
 }
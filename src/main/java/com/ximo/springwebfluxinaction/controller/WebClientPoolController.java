@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.controller;
+
+import com.ximo.springwebfluxinaction.client.ConnectionPoolSnapshot;
+import com.ximo.springwebfluxinaction.client.WebClientFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * 查看 webclient 连接池状态
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@RestController
+@RequestMapping("/client")
+public class WebClientPoolController {
+
+    @Autowired
+    private WebClientFactory webClientFactory;
+
+    @GetMapping("/pool")
+    public Flux<ConnectionPoolSnapshot> pool() {
+        return Flux.defer(() -> Flux.fromIterable(webClientFactory.poolSnapshot()));
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.ximo.springwebfluxinaction.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import lombok.EqualsAndHashCode;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.util.StringJoiner;
+
+/**
+ * 只序列化 {@link ExampleDTO} 的部分字段, 比如 ?fields=id
+ * <p>
+ * 按请求决定字段, 注解式的 controller 上 @JsonView 是写死的, 所以把元素包一层自己序列化, json, smile 和 sse 的 codec 都不用改;
+ * 全部字段时不包装, 直接输出 ExampleDTO
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@EqualsAndHashCode
+public final class ExampleProjection {
+
+    private static final int ID = 1;
+
+    private static final int NAME = 1 << 1;
+
+    public static final ExampleProjection ALL = new ExampleProjection(ID | NAME);
+
+    private final int mask;
+
+    private ExampleProjection(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * @param fields 逗号分隔的字段名, 为空时是全部字段
+     * @throws IllegalArgumentException 有不认识的字段
+     */
+    public static ExampleProjection parse(@Nullable String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return ALL;
+        }
+        int mask = 0;
+        for (String field : fields.split(",")) {
+            switch (field.trim()) {
+                case "id":
+                    mask |= ID;
+                    break;
+                case "name":
+                    mask |= NAME;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown field '" + field.trim() + "', expected id or name");
+            }
+        }
+        return fromMask(mask);
+    }
+
+    /**
+     * @see #getMask()
+     */
+    public static ExampleProjection fromMask(int mask) {
+        if (mask == ALL.mask) {
+            return ALL;
+        }
+        if (mask <= 0 || (mask & ~ALL.mask) != 0) {
+            throw new IllegalArgumentException("invalid field mask " + mask);
+        }
+        return new ExampleProjection(mask);
+    }
+
+    /**
+     * 字段的位掩码, 用于放进分页游标
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    public boolean isAll() {
+        return mask == ALL.mask;
+    }
+
+    /**
+     * @return 全部字段时是 example 本身, 否则是只写出选中字段的包装
+     */
+    public Object apply(ExampleDTO example) {
+        return isAll() ? example : new Projected(example, mask);
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(",");
+        if ((mask & ID) != 0) {
+            joiner.add("id");
+        }
+        if ((mask & NAME) != 0) {
+            joiner.add("name");
+        }
+        return joiner.toString();
+    }
+
+    private static final class Projected implements JsonSerializable {
+
+        private final ExampleDTO example;
+
+        private final int mask;
+
+        Projected(ExampleDTO example, int mask) {
+            this.example = example;
+            this.mask = mask;
+        }
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            if ((mask & ID) != 0) {
+                provider.defaultSerializeField("id", example.getId(), generator);
+            }
+            if ((mask & NAME) != 0) {
+                provider.defaultSerializeField("name", example.getName(), generator);
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider provider,
+                                      TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, provider);
+        }
+    }
+
+}
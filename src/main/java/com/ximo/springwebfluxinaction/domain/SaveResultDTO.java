@@ -0,0 +1,18 @@
+package com.ximo.springwebfluxinaction.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaveResultDTO {
+
+    private Long saved;
+
+}
@@ -0,0 +1,74 @@
+package com.ximo.springwebfluxinaction.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.web.reactive.server.WebFluxTags;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问日志, 请求结束时按路由采样限速后输出到 webflux.access
+ * <p>
+ * 写日志只是放进 logback-spring.xml 里 ASYNC_ACCESS 的有界队列, io 在 logback 的线程上做, 队列满了直接丢弃, 不会卡住 event loop
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class AccessLogWebFilter implements WebFilter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("webflux.access");
+
+    private final LogSampler sampler;
+
+    public AccessLogWebFilter(LogSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!ACCESS_LOG.isInfoEnabled()) {
+            return chain.filter(exchange);
+        }
+        return Mono.defer(() -> {
+            final long start = System.nanoTime();
+            final Throwable[] error = new Throwable[1];
+            return chain.filter(exchange)
+                    .doOnError(e -> error[0] = e)
+                    .doFinally(signal -> log(exchange, status(exchange, signal, error[0]), start));
+        });
+    }
+
+    /**
+     * 异常会在 filter 外面才被 WebExceptionHandler 转换成响应, 这里还没有状态码; 能从异常里知道状态码的按它算,
+     * 比如参数错误的 400 和找不到的 404, 不知道的才算 500
+     */
+    private static HttpStatus status(ServerWebExchange exchange, SignalType signal, @Nullable Throwable error) {
+        if (signal == SignalType.ON_ERROR) {
+            return error instanceof ResponseStatusException
+                    ? ((ResponseStatusException) error).getStatus() : HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        final HttpStatus status = exchange.getResponse().getStatusCode();
+        return status == null ? HttpStatus.OK : status;
+    }
+
+    private void log(ServerWebExchange exchange, HttpStatus status, long start) {
+        final boolean serverError = status.is5xxServerError();
+        // 和 http.server.requests 的 uri 标签一样, 是 pattern 而不是实际路径
+        final String route = WebFluxTags.uri(exchange).getValue();
+        if (serverError ? sampler.acquire(route) : sampler.sample(route)) {
+            final long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            ACCESS_LOG.info("method={} route={} path={} status={} duration_us={}",
+                    exchange.getRequest().getMethodValue(), route, exchange.getRequest().getPath().value(),
+                    status.value(), micros);
+        }
+    }
+
+}
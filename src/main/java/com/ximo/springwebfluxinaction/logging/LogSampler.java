@@ -0,0 +1,80 @@
+package com.ximo.springwebfluxinaction.logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 按路由采样并限速, 判断过程无锁也不分配对象 (路由第一次出现时除外)
+ * <p>
+ * 路由要是有限的几个值, 比如 handler 的 pattern, 不要直接用请求路径
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class LogSampler {
+
+    private final double sampleRate;
+
+    private final int maxPerSecond;
+
+    private final LongSupplier currentTimeMillis;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public LogSampler(double sampleRate, int maxPerSecond) {
+        this(sampleRate, maxPerSecond, System::currentTimeMillis);
+    }
+
+    LogSampler(double sampleRate, int maxPerSecond, LongSupplier currentTimeMillis) {
+        this.sampleRate = sampleRate;
+        this.maxPerSecond = maxPerSecond;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * @return 先采样再限速, 都通过才输出
+     */
+    public boolean sample(String route) {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        return acquire(route);
+    }
+
+    /**
+     * @return 不采样, 只限速, 用于错误之类必须尽量输出的日志
+     */
+    public boolean acquire(String route) {
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+        Window window = windows.get(route);
+        if (window == null) {
+            window = windows.computeIfAbsent(route, key -> new Window());
+        }
+        return window.tryAcquire(currentTimeMillis.getAsLong() / 1000, maxPerSecond);
+    }
+
+    /**
+     * 按秒计数的固定窗口, 换秒时并发的几个请求可能多算或少算一两条, 日志限速不需要更精确
+     */
+    private static class Window {
+
+        private final AtomicLong second = new AtomicLong(-1);
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        boolean tryAcquire(long now, int max) {
+            final long current = second.get();
+            if (current != now && second.compareAndSet(current, now)) {
+                count.set(0);
+            }
+            return count.incrementAndGet() <= max;
+        }
+    }
+
+}
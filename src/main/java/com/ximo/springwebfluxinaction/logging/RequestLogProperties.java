@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.logging")
+public class RequestLogProperties {
+
+    /**
+     * 是否输出访问日志, 日志名 webflux.access
+     */
+    private boolean accessLog = true;
+
+    /**
+     * 正常请求的采样比例, 0 到 1
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 每个路由每秒最多输出多少条, 小于等于 0 不限制; 5xx 不采样但同样受这个限制
+     */
+    private int maxPerSecond = 100;
+
+}
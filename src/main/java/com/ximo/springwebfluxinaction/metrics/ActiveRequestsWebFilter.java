@@ -0,0 +1,35 @@
+package com.ximo.springwebfluxinaction.metrics;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * 正在处理中的请求数和它们已经耗费的时间, boot 2.2 的 webflux 指标只有处理完的请求
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ActiveRequestsWebFilter implements WebFilter {
+
+    private final LongTaskTimer activeRequests;
+
+    public ActiveRequestsWebFilter(MeterRegistry registry) {
+        this.activeRequests = LongTaskTimer.builder("http.server.requests.active")
+                .description("requests currently being handled")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return Mono.defer(() -> {
+            final LongTaskTimer.Sample sample = activeRequests.start();
+            return chain.filter(exchange)
+                    .doFinally(signal -> sample.stop());
+        });
+    }
+
+}
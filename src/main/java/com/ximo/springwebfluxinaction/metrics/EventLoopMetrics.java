@@ -0,0 +1,39 @@
+package com.ximo.springwebfluxinaction.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * 每个 event loop 线程排队的任务数, 持续大于 0 说明 event loop 被占住了 (阻塞调用或者太重的序列化)
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class EventLoopMetrics implements MeterBinder {
+
+    private final LoopResources loopResources;
+
+    public EventLoopMetrics(LoopResources loopResources) {
+        this.loopResources = loopResources;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        int index = 0;
+        for (EventExecutor executor : loopResources.onServer(true)) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                Gauge.builder("netty.eventloop.pending.tasks", (SingleThreadEventExecutor) executor,
+                        SingleThreadEventExecutor::pendingTasks)
+                        .tag("eventloop", String.valueOf(index))
+                        .description("tasks waiting to run on the event loop")
+                        .register(registry);
+            }
+            index++;
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.ximo.springwebfluxinaction.metrics;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 打开 reactor scheduler 的 micrometer 指标, 只对之后创建的 scheduler 生效, 所以放在环境准备好时而不是 bean 里
+ * <p>
+ * 指标注册在 {@code Metrics.globalRegistry}, boot 会把 prometheus registry 加进去
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ReactorMetricsInitializer implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        final Boolean enabled = event.getEnvironment()
+                .getProperty("webflux.metrics.reactor-schedulers", Boolean.class, true);
+        if (enabled) {
+            Schedulers.enableMetrics();
+        }
+    }
+
+}
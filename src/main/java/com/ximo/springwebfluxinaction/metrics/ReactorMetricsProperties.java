@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.metrics")
+public class ReactorMetricsProperties {
+
+    /**
+     * 记录 reactor scheduler 线程池的任务数和排队数
+     */
+    private boolean reactorSchedulers = true;
+
+    /**
+     * 记录 reactor netty 服务端每个 uri 的收发耗时
+     */
+    private boolean nettyServer = true;
+
+    /**
+     * reactor netty 服务端指标最多记录多少个不同的 uri, 之后出现的新 uri 不再记录
+     */
+    private int maxNettyServerUris = 100;
+
+}
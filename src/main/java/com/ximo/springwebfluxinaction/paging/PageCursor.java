@@ -0,0 +1,73 @@
+package com.ximo.springwebfluxinaction.paging;
+
+import com.ximo.springwebfluxinaction.domain.ExampleProjection;
+import lombok.Value;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * keyset 分页的续页游标: 上一页最后一个 id 和第一页的查询条件 (每页条数, 总数, 字段), 编码成不透明的 base64url 字符串
+ * <p>
+ * 下一页从 id 大于 afterId 的位置直接开始, 不需要跳过前面的数据, 翻到多深每页的开销都一样
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Value
+public class PageCursor {
+
+    /**
+     * 响应头, 还有下一页时带上下一页的游标, 同时有 Link: rel="next"
+     */
+    public static final String HEADER = "X-Next-Cursor";
+
+    private static final byte VERSION = 1;
+
+    private static final int BYTES = 1 + Integer.BYTES * 3 + 1;
+
+    /**
+     * 上一页最后一个 id, 不包含
+     */
+    int afterId;
+
+    int limit;
+
+    int count;
+
+    ExampleProjection projection;
+
+    public String encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(BYTES)
+                .put(VERSION)
+                .putInt(afterId)
+                .putInt(limit)
+                .putInt(count)
+                .put((byte) projection.getMask());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws IllegalArgumentException 不是 {@link #encode()} 生成的
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+            if (buffer.remaining() != BYTES || buffer.get() != VERSION) {
+                throw new IllegalArgumentException("malformed cursor");
+            }
+            final int afterId = buffer.getInt();
+            final int limit = buffer.getInt();
+            final int count = buffer.getInt();
+            final ExampleProjection projection = ExampleProjection.fromMask(buffer.get());
+            if (limit <= 0 || count < 0) {
+                throw new IllegalArgumentException("malformed cursor");
+            }
+            return new PageCursor(afterId, limit, count, projection);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("malformed cursor", e);
+        }
+    }
+
+}
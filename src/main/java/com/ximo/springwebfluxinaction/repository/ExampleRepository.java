@@ -0,0 +1,164 @@
+package com.ximo.springwebfluxinaction.repository;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link ExampleDTO} 的 r2dbc 存储
+ * <p>
+ * 查询是按 fetchSize 分批从游标上读的 Flux, 下游不 request 就不会继续读
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ExampleRepository {
+
+    /**
+     * name 列的长度
+     */
+    public static final int NAME_MAX_LENGTH = 255;
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS example (id INT PRIMARY KEY, name VARCHAR(" + NAME_MAX_LENGTH + "))";
+
+    private static final String UPSERT = "MERGE INTO example (id, name) KEY (id) VALUES ($1, $2)";
+
+    private static final String SELECT_AFTER = "SELECT id, name FROM example WHERE id > $1 ORDER BY id LIMIT $2";
+
+    private static final String SELECT_BY_ID = "SELECT id, name FROM example WHERE id = $1";
+
+    private static final String COUNT = "SELECT COUNT(*) FROM example";
+
+    private final ConnectionFactory connectionFactory;
+
+    private final int fetchSize;
+
+    private final Scheduler scheduler;
+
+    /**
+     * @param connectionFactory 连接池
+     * @param fetchSize         每次从游标读多少行
+     * @param scheduler         执行数据库操作的线程, 非阻塞驱动传 {@link reactor.core.scheduler.Schedulers#immediate()}
+     */
+    public ExampleRepository(ConnectionFactory connectionFactory, int fetchSize, Scheduler scheduler) {
+        this.connectionFactory = connectionFactory;
+        this.fetchSize = fetchSize;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 写入前检查, 一批里有一条写不进去整批都会失败, 要在进批之前把它挑出来
+     *
+     * @return 不能写入的原因, 可以写入时为 null
+     */
+    @Nullable
+    public static String validate(ExampleDTO example) {
+        if (example.getId() == null) {
+            return "id is required";
+        }
+        if (example.getName() != null && example.getName().length() > NAME_MAX_LENGTH) {
+            return "name of example " + example.getId() + " is longer than " + NAME_MAX_LENGTH;
+        }
+        return null;
+    }
+
+    public Mono<Void> createSchema() {
+        return execute(connection -> Flux.from(connection.createStatement(CREATE_TABLE).execute())
+                .flatMap(Result::getRowsUpdated))
+                .then();
+    }
+
+    /**
+     * 按 id 顺序读出所有数据
+     */
+    public Flux<ExampleDTO> findAll() {
+        return findAfter(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按 id 顺序读出 id 大于 afterId 的数据
+     *
+     * @param afterId 不包含
+     * @param limit   最多多少条
+     */
+    public Flux<ExampleDTO> findAfter(int afterId, int limit) {
+        return execute(connection -> Flux.from(connection.createStatement(SELECT_AFTER)
+                .bind("$1", afterId)
+                .bind("$2", limit)
+                .fetchSize(fetchSize)
+                .execute())
+                .concatMap(result -> result.map(ExampleRepository::toExample)));
+    }
+
+    public Mono<ExampleDTO> findById(int id) {
+        return execute(connection -> Flux.from(connection.createStatement(SELECT_BY_ID)
+                .bind("$1", id)
+                .execute())
+                .concatMap(result -> result.map(ExampleRepository::toExample)))
+                .next();
+    }
+
+    public Mono<Long> count() {
+        return execute(connection -> Flux.from(connection.createStatement(COUNT).execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class))))
+                .next();
+    }
+
+    /**
+     * 一条语句绑定多组参数, 在一个事务里批量写入, 已存在的 id 会被覆盖
+     */
+    public Mono<Void> saveAll(List<ExampleDTO> examples) {
+        if (examples.isEmpty()) {
+            return Mono.empty();
+        }
+        return execute(connection -> Mono.from(connection.beginTransaction())
+                .thenMany(Flux.from(bindAll(connection.createStatement(UPSERT), examples).execute())
+                        .flatMap(Result::getRowsUpdated))
+                .then(Mono.from(connection.commitTransaction()))
+                .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e))))
+                .then();
+    }
+
+    private static Statement bindAll(Statement statement, List<ExampleDTO> examples) {
+        for (int i = 0; i < examples.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            final ExampleDTO example = examples.get(i);
+            statement.bind("$1", example.getId());
+            if (example.getName() == null) {
+                statement.bindNull("$2", String.class);
+            } else {
+                statement.bind("$2", example.getName());
+            }
+        }
+        return statement;
+    }
+
+    private static ExampleDTO toExample(Row row, RowMetadata metadata) {
+        return new ExampleDTO(row.get("id", Integer.class), row.get("name", String.class));
+    }
+
+    /**
+     * 从连接池借一个连接, 结束, 出错或取消时都会还回去
+     */
+    private <T> Flux<T> execute(Function<Connection, Publisher<T>> action) {
+        return Flux.usingWhen(connectionFactory.create(), action, Connection::close)
+                // request 也会在 scheduler 上执行, 读下一批行不会发生在 event loop 上
+                .subscribeOn(scheduler);
+    }
+
+}
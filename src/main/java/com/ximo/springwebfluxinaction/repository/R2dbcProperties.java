@@ -0,0 +1,55 @@
+package com.ximo.springwebfluxinaction.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * r2dbc 连接和连接池参数
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.r2dbc")
+public class R2dbcProperties {
+
+    /**
+     * 默认是内存里的 h2, LAZY_QUERY_EXECUTION 让 h2 按需读取结果而不是一次性读完
+     */
+    private String url = "r2dbc:h2:mem:///example?options=DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1";
+
+    private String username = "sa";
+
+    private String password = "";
+
+    /**
+     * 查询每次从数据库取多少行
+     */
+    private int fetchSize = 256;
+
+    /**
+     * 驱动在调用线程上同步执行时(比如嵌入式 h2)需要切到单独的线程池,
+     * 真正非阻塞的驱动(比如 r2dbc-postgresql)可以关掉; 线程池在 webflux.schedulers.executors.r2dbc 配置
+     */
+    private boolean offload = true;
+
+    private Pool pool = new Pool();
+
+    @Data
+    public static class Pool {
+
+        private int initialSize = 2;
+
+        private int maxSize = 10;
+
+        private Duration maxIdleTime = Duration.ofMinutes(30);
+
+        private Duration maxAcquireTime = Duration.ofSeconds(3);
+
+        private String validationQuery = "SELECT 1";
+
+    }
+
+}
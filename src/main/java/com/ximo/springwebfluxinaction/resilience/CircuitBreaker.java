@@ -0,0 +1,165 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 无锁的熔断器, 状态切换都是 CAS
+ * <ul>
+ * <li>CLOSED: 按固定时间窗口统计, 调用数够 minimumCalls 且失败率达到阈值时打开</li>
+ * <li>OPEN: 直接拒绝, openDuration 之后转为 HALF_OPEN</li>
+ * <li>HALF_OPEN: 只放行 halfOpenCalls 个试探请求, 全部成功才关闭, 有一个失败就重新打开</li>
+ * </ul>
+ * 窗口换新时并发的几次调用可能算进旧窗口, 对熔断判断没有影响
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long windowNanos;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+
+    private final AtomicLong windowStart;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile long openedAt;
+
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    public CircuitBreaker(double failureRateThreshold, int minimumCalls, Duration window, Duration openDuration,
+                          int halfOpenCalls) {
+        this(failureRateThreshold, minimumCalls, window, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(double failureRateThreshold, int minimumCalls, Duration window, Duration openDuration,
+                   int halfOpenCalls, LongSupplier nanoTime) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.windowNanos = window.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+        this.windowStart = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * @return 是否放行, 放行后必须调用 onSuccess, onFailure 或 onIgnored 中的一个
+     */
+    public boolean tryAcquire() {
+        switch (getState()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoTime.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                if (transition(State.OPEN, State.HALF_OPEN)) {
+                    halfOpenSuccesses.set(0);
+                    halfOpenPermits.set(halfOpenCalls);
+                }
+                return tryAcquire();
+            default:
+                return acquireHalfOpenPermit();
+        }
+    }
+
+    public void onSuccess() {
+        if (getState() == State.HALF_OPEN) {
+            if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls && transition(State.HALF_OPEN, State.CLOSED)) {
+                resetWindow(nanoTime.getAsLong());
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public void onFailure() {
+        if (getState() == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+            return;
+        }
+        record(true);
+    }
+
+    /**
+     * 放行了但没有结果, 比如被取消, 不算成功也不算失败
+     */
+    public void onIgnored() {
+        if (getState() == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    public State getState() {
+        return State.values()[state.get()];
+    }
+
+    private boolean acquireHalfOpenPermit() {
+        for (; ; ) {
+            final int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void record(boolean failure) {
+        final long now = nanoTime.getAsLong();
+        final long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            calls.set(0);
+            failures.set(0);
+        }
+        final int total = calls.incrementAndGet();
+        if (!failure) {
+            return;
+        }
+        final int failed = failures.incrementAndGet();
+        if (total >= minimumCalls && failed >= failureRateThreshold * total) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void open(State from) {
+        // 先写时间再切状态, 别的线程看到 OPEN 时时间一定是新的; 切换失败最多让打开的时间晚一点结束
+        openedAt = nanoTime.getAsLong();
+        transition(from, State.OPEN);
+    }
+
+    private void resetWindow(long now) {
+        windowStart.set(now);
+        calls.set(0);
+        failures.set(0);
+    }
+
+    private boolean transition(State from, State to) {
+        return state.compareAndSet(from.ordinal(), to.ordinal());
+    }
+
+}
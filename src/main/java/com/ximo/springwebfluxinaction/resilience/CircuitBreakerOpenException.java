@@ -0,0 +1,17 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import org.springframework.web.reactive.function.client.WebClientException;
+
+/**
+ * 目标地址的熔断器打开着, 请求没有发出去
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class CircuitBreakerOpenException extends WebClientException {
+
+    public CircuitBreakerOpenException(String host) {
+        super("circuit breaker open for " + host);
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+
+/**
+ * 请求的截止时间, 放在 reactor 的 Context 里, key 是 {@code Deadline.class}
+ * <p>
+ * 服务之间用相对时间 {@link #HEADER} 传递, 避免两台机器的时钟不一致
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public final class Deadline {
+
+    /**
+     * 剩余的毫秒数
+     */
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final long nanoTime;
+
+    private Deadline(long nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * @return 两个里面先到的那个, other 为 null 时返回自己
+     */
+    public Deadline min(@Nullable Deadline other) {
+        return other == null || nanoTime - other.nanoTime <= 0 ? this : other;
+    }
+
+    /**
+     * @return 剩余时间, 已经过了时为 0
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, nanoTime - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return nanoTime - System.nanoTime() <= 0;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import org.springframework.web.reactive.function.client.WebClientException;
+
+import java.net.URI;
+
+/**
+ * 截止时间到了还没有拿到响应, 包括重试和对冲在内
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class DeadlineExceededException extends WebClientException {
+
+    public DeadlineExceededException(URI url) {
+        super("deadline exceeded before " + url + " responded");
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * 读取调用方传来的 {@link Deadline#HEADER}, 放进 Context 里, 这个请求里再调用别的服务时会继续往下传
+ * <p>
+ * 到达时已经没有剩余时间的请求直接返回 504, 调用方已经不会再等结果了
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class DeadlineWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String timeout = exchange.getRequest().getHeaders().getFirst(Deadline.HEADER);
+        if (timeout == null) {
+            return chain.filter(exchange);
+        }
+        final long millis;
+        try {
+            millis = Long.parseLong(timeout.trim());
+        } catch (NumberFormatException e) {
+            return chain.filter(exchange);
+        }
+        if (millis <= 0) {
+            exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+            return exchange.getResponse().setComplete();
+        }
+        final Deadline deadline = Deadline.after(Duration.ofMillis(millis));
+        return chain.filter(exchange)
+                .subscriberContext(context -> context.put(Deadline.class, deadline));
+    }
+
+}
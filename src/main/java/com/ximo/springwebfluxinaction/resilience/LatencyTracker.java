@@ -0,0 +1,70 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近若干次调用的耗时, 用来估计对冲请求的等待时间
+ * <p>
+ * 记录是写环形数组, 无锁; 分位数最多每 100ms 由一个线程重新排序计算一次, 其他线程读缓存的结果
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class LatencyTracker {
+
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLongArray samples;
+
+    /**
+     * 记录过的总次数, long 不会溢出; int 的话 2^31 次之后变成负数, 算出来的样本数就不对了
+     */
+    private final AtomicLong index = new AtomicLong();
+
+    private final double percentile;
+
+    private final int minSamples;
+
+    private final AtomicLong nextRefresh = new AtomicLong(System.nanoTime());
+
+    private volatile long cachedNanos = -1;
+
+    public LatencyTracker(int size, double percentile, int minSamples) {
+        this.samples = new AtomicLongArray(size);
+        this.percentile = percentile;
+        this.minSamples = Math.min(size, minSamples);
+    }
+
+    public void record(long nanos) {
+        samples.set((int) (index.getAndIncrement() % samples.length()), nanos);
+    }
+
+    /**
+     * @return 分位数, 样本不够时为 -1
+     */
+    public long percentileNanos() {
+        final long now = System.nanoTime();
+        final long refresh = nextRefresh.get();
+        if (now - refresh >= 0 && nextRefresh.compareAndSet(refresh, now + REFRESH_NANOS)) {
+            cachedNanos = compute();
+        }
+        return cachedNanos;
+    }
+
+    private long compute() {
+        final int count = (int) Math.min(index.get(), samples.length());
+        if (count < minSamples) {
+            return -1;
+        }
+        final long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+    }
+
+}
@@ -0,0 +1,206 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import com.ximo.springwebfluxinaction.client.WebClientProperties;
+import io.netty.channel.ChannelException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * webclient 的容错层, 从外到内:
+ * <ol>
+ * <li>截止时间: 配置的 timeout 和 Context 里调用方的 {@link Deadline} 取先到的, 重试和对冲都算在里面,
+ * 剩余时间通过 {@link Deadline#HEADER} 传给上游</li>
+ * <li>重试: 只重试幂等请求, 连接错误和 502/503/504, 指数退避加随机抖动; 带 Retry-After 的 503 是上游在主动限流,
+ * 不重试, 原样交给调用方</li>
+ * <li>对冲: 幂等请求等了该地址最近耗时的 p95 还没有响应, 再发一个, 用先到的响应, 另一个取消或释放</li>
+ * <li>熔断: 每个 host:port 一个 {@link CircuitBreaker}, 打开时直接失败, 不占连接</li>
+ * </ol>
+ * 截止时间管到拿到响应头为止, 之后读响应体由连接上的 read-timeout 兜底
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ResilienceExchangeFilter implements ExchangeFilterFunction {
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = EnumSet.of(HttpMethod.GET, HttpMethod.HEAD,
+            HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.TRACE);
+
+    private static final Set<HttpStatus> RETRYABLE_STATUSES = EnumSet.of(HttpStatus.BAD_GATEWAY,
+            HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT);
+
+    private final WebClientProperties.Resilience properties;
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    public ResilienceExchangeFilter(WebClientProperties.Resilience properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.subscriberContext().flatMap(context -> {
+            final Deadline deadline = Deadline.after(properties.getTimeout())
+                    .min(context.getOrDefault(Deadline.class, null));
+            if (deadline.isExpired()) {
+                return Mono.error(new DeadlineExceededException(request.url()));
+            }
+            final String host = host(request.url());
+            final boolean idempotent = IDEMPOTENT_METHODS.contains(request.method());
+
+            Mono<ClientResponse> call = Mono.defer(() -> attempt(request, next, host, deadline, idempotent));
+            if (idempotent && properties.getHedge().isEnabled()) {
+                call = hedge(call, host);
+            }
+            final WebClientProperties.Retry retry = properties.getRetry();
+            if (idempotent && retry.getMaxRetries() > 0) {
+                call = call.retryWhen(Retry.backoff(retry.getMaxRetries(), retry.getMinBackoff())
+                        .maxBackoff(retry.getMaxBackoff())
+                        .jitter(retry.getJitter())
+                        .filter(ResilienceExchangeFilter::isRetryable)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+            }
+            return call.timeout(deadline.remaining(), Mono.error(new DeadlineExceededException(request.url())));
+        });
+    }
+
+    /**
+     * 一次实际的请求, 结果记到熔断器和耗时里
+     */
+    private Mono<ClientResponse> attempt(ClientRequest request, ExchangeFunction next, String host,
+                                         Deadline deadline, boolean idempotent) {
+        final CircuitBreaker circuitBreaker = circuitBreaker(host);
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            return Mono.error(new CircuitBreakerOpenException(host));
+        }
+        final ClientRequest withDeadline = ClientRequest.from(request)
+                .headers(headers -> headers.set(Deadline.HEADER,
+                        String.valueOf(Math.max(1, deadline.remaining().toMillis()))))
+                .build();
+        final long start = System.nanoTime();
+        // 成功, 失败, 取消只记一次
+        final AtomicBoolean recorded = new AtomicBoolean();
+        return next.exchange(withDeadline)
+                .doOnError(e -> {
+                    if (recorded.compareAndSet(false, true) && circuitBreaker != null) {
+                        circuitBreaker.onFailure();
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (recorded.compareAndSet(false, true) && circuitBreaker != null) {
+                        // 超过截止时间被取消说明上游卡住了, 对冲输掉的那个不算
+                        if (deadline.isExpired()) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onIgnored();
+                        }
+                    }
+                })
+                .flatMap(response -> {
+                    final HttpStatus status = HttpStatus.resolve(response.rawStatusCode());
+                    if (recorded.compareAndSet(false, true)) {
+                        latency(host).record(System.nanoTime() - start);
+                        if (circuitBreaker != null) {
+                            if (response.rawStatusCode() >= 500) {
+                                circuitBreaker.onFailure();
+                            } else {
+                                circuitBreaker.onSuccess();
+                            }
+                        }
+                    }
+                    if (idempotent && status != null && RETRYABLE_STATUSES.contains(status)
+                            && !isShedding(response)) {
+                        return response.releaseBody()
+                                .then(Mono.error(new RetryableStatusException(host, status)));
+                    }
+                    return Mono.just(response);
+                });
+    }
+
+    /**
+     * 等到 p95 还没有响应就再发一次, 只有先拿到响应的那个会发出去, 后到的直接释放
+     */
+    private Mono<ClientResponse> hedge(Mono<ClientResponse> call, String host) {
+        final WebClientProperties.Hedge hedge = properties.getHedge();
+        return Mono.defer(() -> {
+            final long percentile = latency(host).percentileNanos();
+            if (percentile < 0) {
+                return call;
+            }
+            final Duration delay = Duration.ofNanos(Math.max(percentile, hedge.getMinDelay().toNanos()));
+            final AtomicBoolean won = new AtomicBoolean();
+            return Flux.mergeDelayError(2, claim(call, won), Mono.delay(delay).then(claim(call, won)))
+                    .next();
+        });
+    }
+
+    private static Mono<ClientResponse> claim(Mono<ClientResponse> call, AtomicBoolean won) {
+        return call.flatMap(response -> won.compareAndSet(false, true) ? Mono.just(response)
+                : response.releaseBody().then(Mono.empty()));
+    }
+
+    @Nullable
+    private CircuitBreaker circuitBreaker(String host) {
+        final WebClientProperties.Breaker breaker = properties.getCircuitBreaker();
+        if (!breaker.isEnabled()) {
+            return null;
+        }
+        return circuitBreakers.computeIfAbsent(host, key -> new CircuitBreaker(breaker.getFailureRateThreshold(),
+                breaker.getMinimumCalls(), breaker.getWindow(), breaker.getOpenDuration(),
+                breaker.getHalfOpenCalls()));
+    }
+
+    private LatencyTracker latency(String host) {
+        return latencies.computeIfAbsent(host, key -> new LatencyTracker(512, properties.getHedge().getPercentile(),
+                properties.getHedge().getMinSamples()));
+    }
+
+    @Nullable
+    CircuitBreaker.State getState(String host) {
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+        return circuitBreaker == null ? null : circuitBreaker.getState();
+    }
+
+    static String host(URI url) {
+        return url.getHost() + ':' + url.getPort();
+    }
+
+    private static boolean isShedding(ClientResponse response) {
+        return response.rawStatusCode() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                && !response.headers().header(HttpHeaders.RETRY_AFTER).isEmpty();
+    }
+
+    /**
+     * 对冲时两个都失败会合并成一个异常, 有一个能重试就重试
+     */
+    private static boolean isRetryable(Throwable error) {
+        for (Throwable e : Exceptions.unwrapMultiple(error)) {
+            if (e instanceof RetryableStatusException || e instanceof IOException
+                    || e instanceof ChannelException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientException;
+
+/**
+ * 上游返回了可以重试的状态码 (502, 503, 504), 重试用完后交给调用方
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class RetryableStatusException extends WebClientException {
+
+    private final HttpStatus status;
+
+    public RetryableStatusException(String host, HttpStatus status) {
+        super(host + " responded " + status);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+}
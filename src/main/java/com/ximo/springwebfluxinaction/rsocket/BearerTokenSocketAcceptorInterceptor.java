@@ -0,0 +1,84 @@
+package com.ximo.springwebfluxinaction.rsocket;
+
+import com.ximo.springwebfluxinaction.security.TokenAuthentication;
+import io.rsocket.ConnectionSetupPayload;
+import io.rsocket.SocketAcceptor;
+import io.rsocket.exceptions.RejectedSetupException;
+import io.rsocket.metadata.CompositeMetadata;
+import io.rsocket.plugins.SocketAcceptorInterceptor;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * rsocket 连接建立时校验 SETUP 里的 token, 和 http 用同一个 {@link ReactiveAuthenticationManager},
+ * 和 http 的受保护接口一样要求 token 带有指定的权限
+ * <p>
+ * /rsocket 挂在 reactor netty 的路由上, 不经过 webflux 的 security filter chain, 所以在这里认证;
+ * token 放在 SETUP 的 composite metadata 里, mime 类型是 {@link #BEARER_MIME_TYPE}, 和 spring security 的约定一致
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class BearerTokenSocketAcceptorInterceptor implements SocketAcceptorInterceptor {
+
+    public static final MimeType BEARER_MIME_TYPE = MimeType.valueOf("message/x.rsocket.authentication.bearer.v0");
+
+    private static final String COMPOSITE_METADATA = "message/x.rsocket.composite-metadata.v0";
+
+    private final ReactiveAuthenticationManager authenticationManager;
+
+    private final String authority;
+
+    /**
+     * @param authority 建立连接需要的权限
+     */
+    public BearerTokenSocketAcceptorInterceptor(ReactiveAuthenticationManager authenticationManager, String authority) {
+        this.authenticationManager = authenticationManager;
+        this.authority = authority;
+    }
+
+    @Override
+    public SocketAcceptor apply(SocketAcceptor acceptor) {
+        return (setup, sendingSocket) -> {
+            final String token = token(setup);
+            if (token == null) {
+                return Mono.error(new RejectedSetupException("missing bearer token"));
+            }
+            return authenticationManager.authenticate(TokenAuthentication.unauthenticated(token))
+                    .onErrorMap(AuthenticationException.class, e -> new RejectedSetupException(e.getMessage()))
+                    .switchIfEmpty(Mono.error(() -> new RejectedSetupException("invalid bearer token")))
+                    .filter(this::authorized)
+                    .switchIfEmpty(Mono.error(() -> new RejectedSetupException("missing authority " + authority)))
+                    .flatMap(authentication -> acceptor.accept(setup, sendingSocket));
+        };
+    }
+
+    private boolean authorized(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(granted -> authority.equals(granted.getAuthority()));
+    }
+
+    static String token(ConnectionSetupPayload setup) {
+        if (!setup.hasMetadata()) {
+            return null;
+        }
+        if (BEARER_MIME_TYPE.toString().equals(setup.metadataMimeType())) {
+            return setup.getMetadataUtf8();
+        }
+        if (!COMPOSITE_METADATA.equals(setup.metadataMimeType())) {
+            return null;
+        }
+        for (CompositeMetadata.Entry entry : new CompositeMetadata(setup.sliceMetadata(), false)) {
+            if (BEARER_MIME_TYPE.toString().equals(entry.getMimeType())) {
+                return entry.getContent().toString(StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+}
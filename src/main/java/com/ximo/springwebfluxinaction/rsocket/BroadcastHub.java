@@ -0,0 +1,103 @@
+package com.ximo.springwebfluxinaction.rsocket;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把发布的元素广播给当前所有订阅者, 没有订阅者时直接丢弃, 不保留历史
+ * <p>
+ * 所有订阅者共用一个 sink, 发布时在发布线程上把元素放进每个订阅者自己的缓冲 (webflux.rsocket.subscriber-buffer),
+ * 之后按各自的 request 发出; 缓冲满了按 {@link SlowConsumerPolicy} 处理, 慢的订阅者不会拖慢发布方和其他订阅者
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class BroadcastHub<T> implements MeterBinder {
+
+    private final DirectProcessor<T> processor = DirectProcessor.create();
+
+    /**
+     * 多个线程同时发布时由它串行化
+     */
+    private final FluxSink<T> sink = processor.sink();
+
+    private final String name;
+
+    private final int bufferSize;
+
+    private final SlowConsumerPolicy policy;
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public BroadcastHub(String name, int bufferSize, SlowConsumerPolicy policy) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("buffer size must be positive");
+        }
+        this.name = name;
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+    }
+
+    public void publish(T element) {
+        published.increment();
+        sink.next(element);
+    }
+
+    public void publishAll(Iterable<? extends T> elements) {
+        elements.forEach(this::publish);
+    }
+
+    /**
+     * 订阅之后发布的元素, 取消或者连接断开时退出
+     */
+    public Flux<T> subscribe() {
+        return policy.apply(processor, bufferSize, element -> dropped.increment());
+    }
+
+    public long getSubscribers() {
+        return processor.downstreamCount();
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * 因为订阅者太慢被丢掉的元素数, 每个订阅者分别计数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 正常结束所有订阅
+     */
+    public void dispose() {
+        sink.complete();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("webflux.broadcast.subscribers", this, BroadcastHub::getSubscribers)
+                .tag("hub", name)
+                .description("current subscribers of the broadcast hub")
+                .register(registry);
+        FunctionCounter.builder("webflux.broadcast.published", this, BroadcastHub::getPublished)
+                .tag("hub", name)
+                .register(registry);
+        FunctionCounter.builder("webflux.broadcast.dropped", this, BroadcastHub::getDropped)
+                .tag("hub", name)
+                .description("elements dropped because a subscriber's buffer was full")
+                .register(registry);
+    }
+
+}
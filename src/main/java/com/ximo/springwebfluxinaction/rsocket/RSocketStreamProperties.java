@@ -0,0 +1,33 @@
+package com.ximo.springwebfluxinaction.rsocket;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * rsocket 流式端点的流控参数, 传输和路径见 spring.rsocket.server.*
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.rsocket")
+public class RSocketStreamProperties {
+
+    /**
+     * 每个连接同时进行的 request-stream 和 request-channel 个数, 超过的直接拒绝
+     */
+    private int maxStreamsPerConnection = 16;
+
+    /**
+     * request-channel 每次向客户端要的元素个数 (REQUEST_N), 消费掉 75% 后再要下一批
+     */
+    private int inboundPrefetch = 64;
+
+    /**
+     * 广播时每个订阅者的缓冲大小
+     */
+    private int subscriberBuffer = 256;
+
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_OLDEST;
+
+}
@@ -0,0 +1,46 @@
+package com.ximo.springwebfluxinaction.rsocket;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Consumer;
+
+/**
+ * 订阅者跟不上广播速度, 自己的缓冲满了以后怎么办; 不影响其他订阅者, 也不会让发布方等待
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * 丢掉缓冲里最旧的, 适合只关心最新数据的订阅者
+     */
+    DROP_OLDEST,
+
+    /**
+     * 丢掉新来的, 缓冲里的先发完
+     */
+    DROP_LATEST,
+
+    /**
+     * 结束这个订阅, 客户端收到错误后自己决定是否重新订阅
+     */
+    DISCONNECT;
+
+    <T> Flux<T> apply(Flux<T> source, int bufferSize, Consumer<? super T> onDropped) {
+        switch (this) {
+            case DROP_OLDEST:
+                return source.onBackpressureBuffer(bufferSize, onDropped, BufferOverflowStrategy.DROP_OLDEST);
+            case DROP_LATEST:
+                return source.onBackpressureBuffer(bufferSize, onDropped, BufferOverflowStrategy.DROP_LATEST);
+            default:
+                return source.onBackpressureBuffer(bufferSize, onDropped, BufferOverflowStrategy.ERROR)
+                        .onErrorMap(Exceptions::isOverflow,
+                                e -> new IllegalStateException("subscriber too slow, more than "
+                                        + bufferSize + " elements pending"));
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.ximo.springwebfluxinaction.rsocket;
+
+import io.netty.util.ReferenceCountUtil;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.plugins.RSocketInterceptor;
+import io.rsocket.util.RSocketProxy;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限制每个连接同时进行的流, 一个客户端开再多的流也只占有限的订阅和缓冲; 超过的以 REJECTED 拒绝, 客户端可以稍后重试
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class StreamLimitInterceptor implements RSocketInterceptor {
+
+    private final int maxStreams;
+
+    public StreamLimitInterceptor(int maxStreams) {
+        this.maxStreams = maxStreams;
+    }
+
+    @Override
+    public RSocket apply(RSocket responder) {
+        final AtomicInteger active = new AtomicInteger();
+        return new RSocketProxy(responder) {
+
+            @Override
+            public Flux<Payload> requestStream(Payload payload) {
+                if (!tryAcquire(active)) {
+                    ReferenceCountUtil.safeRelease(payload);
+                    return Flux.error(rejected());
+                }
+                return super.requestStream(payload).doFinally(signal -> active.decrementAndGet());
+            }
+
+            @Override
+            public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+                if (!tryAcquire(active)) {
+                    // 不订阅的话第一个 payload 和之后客户端发来的都没人释放, responder 里这个流的状态也不会清掉
+                    Flux.from(payloads).subscribe(ReferenceCountUtil::safeRelease, error -> {
+                    });
+                    return Flux.error(rejected());
+                }
+                return super.requestChannel(payloads).doFinally(signal -> active.decrementAndGet());
+            }
+        };
+    }
+
+    private boolean tryAcquire(AtomicInteger active) {
+        if (active.incrementAndGet() > maxStreams) {
+            active.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private RejectedException rejected() {
+        return new RejectedException("more than " + maxStreams + " concurrent streams on this connection");
+    }
+
+}
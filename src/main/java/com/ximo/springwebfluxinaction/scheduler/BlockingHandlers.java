@@ -0,0 +1,58 @@
+package com.ximo.springwebfluxinaction.scheduler;
+
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * 阻塞写法的 handler 和响应式服务之间的桥: 同步代码放到 handler 线程池 (一般是虚拟线程) 上执行,
+ * 结果包成 {@link Mono}/{@link Flux} 交回 event loop 写出
+ * <p>
+ * handler 里可以直接调用阻塞的 api, 也可以 block() 别的 Mono, 只是不能返回需要在 event loop 上订阅的无限流
+ * <pre>
+ * &#64;GetMapping("/blocking")
+ * public Mono&lt;ExampleDTO&gt; find(&#64;RequestParam long id) {
+ *     return blockingHandlers.mono(() -&gt; jdbcTemplate.queryForObject(...));
+ * }
+ *
+ * route(GET("/blocking"), blockingHandlers.handler(request -&gt; ok().bodyValue(load(request))))
+ * </pre>
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class BlockingHandlers {
+
+    private final Scheduler scheduler;
+
+    public BlockingHandlers(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 在 handler 线程池上执行, 返回 null 时是空的 Mono
+     */
+    public <T> Mono<T> mono(Callable<? extends T> callable) {
+        return Mono.<T>fromCallable(callable).subscribeOn(scheduler);
+    }
+
+    /**
+     * 在 handler 线程池上拿到整个结果, 再逐个发出
+     */
+    public <T> Flux<T> flux(Callable<? extends Iterable<? extends T>> callable) {
+        return mono(callable).flatMapIterable(Function.identity());
+    }
+
+    /**
+     * RouterFunction 用: handler 本身在 handler 线程池上执行, 返回的响应仍然由 event loop 写出
+     */
+    public <T extends ServerResponse> HandlerFunction<T> handler(HandlerFunction<T> handler) {
+        return request -> Mono.defer(() -> handler.handle(request)).subscribeOn(scheduler);
+    }
+
+}
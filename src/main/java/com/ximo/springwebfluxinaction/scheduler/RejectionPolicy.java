@@ -0,0 +1,21 @@
+package com.ximo.springwebfluxinaction.scheduler;
+
+/**
+ * 线程池和队列都满了之后怎么处理新任务
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public enum RejectionPolicy {
+
+    /**
+     * 直接拒绝, 订阅方收到 {@link java.util.concurrent.RejectedExecutionException}
+     */
+    ABORT,
+
+    /**
+     * 在提交任务的线程上执行, 让提交方慢下来; 提交方是 event loop 或 parallel 这类不能阻塞的线程时仍然拒绝
+     */
+    CALLER_RUNS
+
+}
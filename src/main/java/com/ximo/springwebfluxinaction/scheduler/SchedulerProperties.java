@@ -0,0 +1,56 @@
+package com.ximo.springwebfluxinaction.scheduler;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 执行阻塞调用的线程池, 按名字配置, 见 {@link SchedulerRegistry}
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.schedulers")
+public class SchedulerProperties {
+
+    private Map<String, Executor> executors = new LinkedHashMap<>();
+
+    @Data
+    public static class Executor {
+
+        /**
+         * 最大线程数, 也就是同时进行的阻塞调用数
+         */
+        private int threads = 10;
+
+        /**
+         * 线程都忙时最多排队的任务数, 超过后按 rejectionPolicy 处理
+         */
+        private int queueCapacity = 1000;
+
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+        /**
+         * 空闲线程的存活时间
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * 用虚拟线程执行, 阻塞时不占平台线程, threads 只是并发上限, 可以配得很大;
+         * 需要 jdk 21+, 低版本退回平台线程, 线程数不超过 platformThreads
+         */
+        private boolean virtualThreads;
+
+        /**
+         * 配了 virtualThreads 但 jdk 不支持时最多开多少个平台线程, 为虚拟线程配的 threads 往往有上千,
+         * 同样多的平台线程光线程栈就要占掉上 G 的内存; 多出来的任务在队列里等
+         */
+        private int platformThreads = 64;
+
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.ximo.springwebfluxinaction.scheduler;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 按名字管理执行阻塞调用的 {@link Scheduler}, 每个都是线程数和队列长度有上限的线程池,
+ * 一个阻塞的下游最多占满自己的线程池, 不会拖住 event loop 或者别的下游
+ * <p>
+ * 不用 {@link Schedulers#boundedElastic()}: 它是所有阻塞调用共用的, 队列几乎没有上限, 也没法按名字看指标
+ * <p>
+ * 绑定到 {@link MeterRegistry} 后每个线程池注册 webflux.scheduler.* 指标, 用 scheduler 标签区分
+ * <p>
+ * 配置了 virtual-threads 的线程池里都是虚拟线程, 排队, 拒绝和指标和平台线程一样; jdk 不支持时退回平台线程,
+ * 线程数按 platform-threads 封顶
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Slf4j
+public class SchedulerRegistry implements MeterBinder, DisposableBean {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public SchedulerRegistry(SchedulerProperties properties) {
+        properties.getExecutors().forEach((name, executor) -> entries.put(name, new Entry(name, executor)));
+    }
+
+    /**
+     * @throws IllegalArgumentException 没有配置这个名字
+     */
+    public Scheduler get(String name) {
+        final Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("no scheduler configured under webflux.schedulers.executors." + name);
+        }
+        return entry.scheduler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        entries.values().forEach(entry -> entry.bindTo(registry));
+    }
+
+    @Override
+    public void destroy() {
+        entries.values().forEach(entry -> entry.scheduler.dispose());
+    }
+
+    /**
+     * netty 的 event loop 线程不是 {@link reactor.core.scheduler.NonBlocking}, 单独判断
+     */
+    static boolean isNonBlocking(Thread thread) {
+        return Schedulers.isNonBlockingThread(thread) || thread instanceof FastThreadLocalThread;
+    }
+
+    private static class Entry {
+
+        private final String name;
+
+        private final ThreadPoolExecutor executor;
+
+        private final Scheduler scheduler;
+
+        private final LongAdder rejected = new LongAdder();
+
+        Entry(String name, SchedulerProperties.Executor properties) {
+            this.name = name;
+            final BlockingQueue<Runnable> queue = properties.getQueueCapacity() > 0
+                    ? new ArrayBlockingQueue<>(properties.getQueueCapacity()) : new SynchronousQueue<>();
+            final boolean virtual = properties.isVirtualThreads() && VirtualThreads.isSupported();
+            final int threads = properties.isVirtualThreads() && !virtual
+                    ? Math.min(properties.getThreads(), properties.getPlatformThreads()) : properties.getThreads();
+            if (properties.isVirtualThreads() && !virtual) {
+                log.warn("scheduler {} is configured with virtual threads, which require JDK 21+; "
+                        + "falling back to {} platform threads", name, threads);
+            }
+            final ThreadFactory threadFactory = virtual
+                    ? VirtualThreads.factory(name + "-") : new NamedThreadFactory(name);
+            this.executor = new ThreadPoolExecutor(threads, threads, properties.getKeepAlive().toNanos(),
+                    TimeUnit.NANOSECONDS, queue, threadFactory, new Rejection(properties.getRejectionPolicy()));
+            executor.allowCoreThreadTimeOut(true);
+            this.scheduler = Schedulers.fromExecutorService(executor, name);
+        }
+
+        void bindTo(MeterRegistry registry) {
+            final Tags tags = Tags.of("scheduler", name);
+            gauge(registry, "webflux.scheduler.active", tags, ThreadPoolExecutor::getActiveCount);
+            gauge(registry, "webflux.scheduler.threads", tags, ThreadPoolExecutor::getPoolSize);
+            gauge(registry, "webflux.scheduler.queued", tags, e -> e.getQueue().size());
+            gauge(registry, "webflux.scheduler.queue.remaining", tags, e -> e.getQueue().remainingCapacity());
+            FunctionCounter.builder("webflux.scheduler.completed", executor, ThreadPoolExecutor::getCompletedTaskCount)
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("webflux.scheduler.rejected", rejected, LongAdder::sum)
+                    .tags(tags)
+                    .description("tasks refused because all threads and the queue were busy")
+                    .register(registry);
+        }
+
+        private void gauge(MeterRegistry registry, String meterName, Tags tags,
+                           ToDoubleFunction<ThreadPoolExecutor> value) {
+            Gauge.builder(meterName, executor, value)
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        private class Rejection implements RejectedExecutionHandler {
+
+            private final RejectionPolicy policy;
+
+            Rejection(RejectionPolicy policy) {
+                this.policy = policy;
+            }
+
+            @Override
+            public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                rejected.increment();
+                if (policy == RejectionPolicy.CALLER_RUNS && !executor.isShutdown()
+                        && !isNonBlocking(Thread.currentThread())) {
+                    task.run();
+                    return;
+                }
+                throw new RejectedExecutionException("scheduler " + name + " is saturated");
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.prefix = name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.ximo.springwebfluxinaction.scheduler;
+
+import org.springframework.lang.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 源码还是 java 8, 虚拟线程 (jdk 21+) 只能反射拿: Thread.ofVirtual().name(prefix, 1).factory()
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+final class VirtualThreads {
+
+    @Nullable
+    private static final MethodHandle OF_VIRTUAL;
+
+    @Nullable
+    private static final MethodHandle NAME;
+
+    @Nullable
+    private static final MethodHandle FACTORY;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            final Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+            name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class, long.class));
+            factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+        } catch (ReflectiveOperationException e) {
+            // jdk 21 以下
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @throws IllegalStateException 当前 jdk 没有虚拟线程
+     */
+    static ThreadFactory factory(String prefix) {
+        if (OF_VIRTUAL == null || NAME == null || FACTORY == null) {
+            throw new IllegalStateException("virtual threads require JDK 21+, running on "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            return (ThreadFactory) FACTORY.invoke(NAME.invoke(OF_VIRTUAL.invoke(), prefix, 1L));
+        } catch (Throwable e) {
+            throw new IllegalStateException("cannot create virtual thread factory", e);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.ximo.springwebfluxinaction.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 从 Authorization: Bearer 请求头里取 token, 没有时返回空, 交给授权规则决定是否放行
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class BearerTokenConverter implements ServerAuthenticationConverter {
+
+    private static final String PREFIX = "Bearer ";
+
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        final String token = token(exchange.getRequest());
+        return token == null ? Mono.empty() : Mono.just(TokenAuthentication.unauthenticated(token));
+    }
+
+    @Nullable
+    static String token(ServerHttpRequest request) {
+        final String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return null;
+        }
+        final String token = authorization.substring(PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+}
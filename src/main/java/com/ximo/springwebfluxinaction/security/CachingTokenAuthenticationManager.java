@@ -0,0 +1,87 @@
+package com.ximo.springwebfluxinaction.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 校验 bearer token, 校验通过的结果按 token 缓存
+ * <p>
+ * 命中缓存时只是一次哈希查找; 未命中时的 hmac 和 json 解析都是纯计算, 直接在当前线程做, 没有阻塞调用.
+ * 缓存有条数上限, 每条在 ttl 和 token 过期时间里取先到的那个失效; 校验失败的 token 不缓存
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class CachingTokenAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final HmacTokenCodec codec;
+
+    private final Cache<String, TokenAuthentication> cache;
+
+    public CachingTokenAuthenticationManager(HmacTokenCodec codec, long maxSize, Duration ttl) {
+        this.codec = codec;
+        final long ttlNanos = ttl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, TokenAuthentication>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenAuthentication value, long currentTime) {
+                        final long untilExpired = TimeUnit.SECONDS.toNanos(value.getExpiresAt())
+                                - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttlNanos, untilExpired));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenAuthentication value, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenAuthentication value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        final String token = (String) authentication.getCredentials();
+        final TokenAuthentication cached = cache.getIfPresent(token);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.fromCallable(() -> cache.get(token,
+                key -> TokenAuthentication.authenticated(key, codec.verify(key))));
+    }
+
+    /**
+     * 同步校验, 不通过时返回 null; 给 security 之前的 filter 用, 通过的结果一样进缓存
+     */
+    @Nullable
+    public TokenAuthentication tryAuthenticate(String token) {
+        try {
+            return cache.get(token, key -> TokenAuthentication.authenticated(key, codec.verify(key)));
+        } catch (AuthenticationException e) {
+            return null;
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.ximo.springwebfluxinaction.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HS256 签名的 jwt, 只签发和校验本服务自己的 token
+ * <p>
+ * 密钥和 header 在构造时准备好: 每个线程一个从原型 clone 出来的 {@link Mac}, 签名比较是常数时间;
+ * header 必须和签发时完全一致, 不解析 header json, 也就不存在 alg=none 之类的降级
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class HmacTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+
+    private final String issuer;
+
+    private final Duration clockSkew;
+
+    private final Clock clock;
+
+    private final ThreadLocal<Mac> macs;
+
+    public HmacTokenCodec(byte[] secret, String issuer, Duration clockSkew, ObjectMapper objectMapper) {
+        this(secret, issuer, clockSkew, objectMapper, Clock.systemUTC());
+    }
+
+    HmacTokenCodec(byte[] secret, String issuer, Duration clockSkew, ObjectMapper objectMapper, Clock clock) {
+        if (secret.length < 32) {
+            throw new IllegalArgumentException("HS256 secret must be at least 256 bits");
+        }
+        this.objectMapper = objectMapper;
+        this.issuer = issuer;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+        final Mac prototype;
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("cannot initialize " + ALGORITHM, e);
+        }
+        this.macs = ThreadLocal.withInitial(() -> cloneMac(prototype));
+    }
+
+    public String issue(String subject, List<String> authorities, Duration ttl) {
+        final long now = clock.instant().getEpochSecond();
+        final Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer);
+        claims.put("sub", subject);
+        claims.put("iat", now);
+        claims.put("exp", now + ttl.getSeconds());
+        claims.put("authorities", authorities);
+        final String payload;
+        try {
+            payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot write token claims", e);
+        }
+        final String signingInput = HEADER + '.' + payload;
+        return signingInput + '.' + ENCODER.encodeToString(sign(signingInput));
+    }
+
+    /**
+     * @throws BadCredentialsException     格式, 签名或签发者不对
+     * @throws CredentialsExpiredException 已过期
+     */
+    public TokenClaims verify(String token) {
+        final int headerEnd = token.indexOf('.');
+        final int payloadEnd = token.lastIndexOf('.');
+        if (headerEnd != HEADER.length() || !token.startsWith(HEADER) || payloadEnd == headerEnd) {
+            throw new BadCredentialsException("malformed token");
+        }
+        final byte[] signature;
+        final byte[] payload;
+        try {
+            signature = DECODER.decode(token.substring(payloadEnd + 1));
+            payload = DECODER.decode(token.substring(headerEnd + 1, payloadEnd));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("malformed token", e);
+        }
+        if (!MessageDigest.isEqual(signature, sign(token.substring(0, payloadEnd)))) {
+            throw new BadCredentialsException("invalid token signature");
+        }
+        final TokenClaims claims;
+        try {
+            claims = objectMapper.readValue(payload, TokenClaims.class);
+        } catch (IOException e) {
+            throw new BadCredentialsException("malformed token claims", e);
+        }
+        if (!issuer.equals(claims.getIss()) || claims.getSub() == null) {
+            throw new BadCredentialsException("untrusted token issuer");
+        }
+        if (claims.getExp() + clockSkew.getSeconds() <= clock.instant().getEpochSecond()) {
+            throw new CredentialsExpiredException("token expired");
+        }
+        return claims;
+    }
+
+    private byte[] sign(String signingInput) {
+        final Mac mac = macs.get();
+        return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac cloneMac(Mac prototype) {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " provider does not support clone", e);
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.ximo.springwebfluxinaction.security;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 服务调用自己或其他同密钥服务时带上本服务签发的 token
+ * <p>
+ * token 用到一半有效期就换新的, 并发换新时多签发一两个也没关系
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ServiceTokenExchangeFilter implements ExchangeFilterFunction {
+
+    private final HmacTokenCodec codec;
+
+    private final String subject;
+
+    private final List<String> authorities;
+
+    private final Duration ttl;
+
+    private volatile String token;
+
+    private volatile long refreshAt;
+
+    public ServiceTokenExchangeFilter(HmacTokenCodec codec, String subject, List<String> authorities, Duration ttl) {
+        this.codec = codec;
+        this.subject = subject;
+        this.authorities = authorities;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        final String current = token();
+        return next.exchange(ClientRequest.from(request)
+                .headers(headers -> headers.setBearerAuth(current))
+                .build());
+    }
+
+    private String token() {
+        final long now = System.currentTimeMillis();
+        String current = token;
+        if (current == null || now >= refreshAt) {
+            current = codec.issue(subject, authorities, ttl);
+            refreshAt = now + ttl.toMillis() / 2;
+            token = current;
+        }
+        return current;
+    }
+
+}
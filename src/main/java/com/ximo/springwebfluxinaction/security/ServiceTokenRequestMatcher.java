@@ -0,0 +1,36 @@
+package com.ximo.springwebfluxinaction.security;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.util.function.Predicate;
+
+/**
+ * 请求带的是 {@link ServiceTokenExchangeFilter} 签发的服务 token, 即本服务 (或同密钥的服务) 自己发来的调用
+ * <p>
+ * 在 security 之前用, 校验结果和认证共用 {@link CachingTokenAuthenticationManager} 的缓存
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ServiceTokenRequestMatcher implements Predicate<ServerHttpRequest> {
+
+    private final CachingTokenAuthenticationManager authenticationManager;
+
+    private final String serviceSubject;
+
+    public ServiceTokenRequestMatcher(CachingTokenAuthenticationManager authenticationManager, String serviceSubject) {
+        this.authenticationManager = authenticationManager;
+        this.serviceSubject = serviceSubject;
+    }
+
+    @Override
+    public boolean test(ServerHttpRequest request) {
+        final String token = BearerTokenConverter.token(request);
+        if (token == null) {
+            return false;
+        }
+        final TokenAuthentication authentication = authenticationManager.tryAuthenticate(token);
+        return authentication != null && serviceSubject.equals(authentication.getPrincipal());
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.ximo.springwebfluxinaction.security;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+/**
+ * bearer token 认证, 校验前只有 token, 校验后带上 subject 和权限
+ * <p>
+ * 校验通过的实例会被缓存, 同一个 token 的后续请求直接复用, 所以权限列表在创建时就转换好
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class TokenAuthentication extends AbstractAuthenticationToken {
+
+    private final String token;
+
+    @Nullable
+    private final String subject;
+
+    /**
+     * epoch 秒, 未校验时为 0
+     */
+    private final long expiresAt;
+
+    private TokenAuthentication(String token, @Nullable String subject, long expiresAt,
+                                Collection<? extends GrantedAuthority> authorities) {
+        super(authorities);
+        this.token = token;
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        setAuthenticated(subject != null);
+    }
+
+    public static TokenAuthentication unauthenticated(String token) {
+        return new TokenAuthentication(token, null, 0, Collections.emptyList());
+    }
+
+    public static TokenAuthentication authenticated(String token, TokenClaims claims) {
+        return new TokenAuthentication(token, claims.getSub(), claims.getExp(), claims.getAuthorities().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public String getCredentials() {
+        return token;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return subject == null ? token : subject;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.security;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * token 里用到的 claim, 时间都是 epoch 秒
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TokenClaims {
+
+    private String iss;
+
+    private String sub;
+
+    private long iat;
+
+    private long exp;
+
+    private List<String> authorities = Collections.emptyList();
+
+}
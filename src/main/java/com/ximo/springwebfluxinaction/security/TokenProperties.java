@@ -0,0 +1,50 @@
+package com.ximo.springwebfluxinaction.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.security.token")
+public class TokenProperties {
+
+    /**
+     * base64 编码的 HS256 密钥, 至少 32 字节; 为空时启动时随机生成, 只有本进程签发的 token 有效
+     */
+    private String secret = "";
+
+    private String issuer = "spring-webflux-in-action";
+
+    /**
+     * 允许的时钟偏差
+     */
+    private Duration clockSkew = Duration.ofSeconds(30);
+
+    /**
+     * 最多缓存多少个校验通过的 token
+     */
+    private long cacheMaxSize = 10_000;
+
+    /**
+     * 校验结果最多缓存多久, token 先过期时以 token 为准
+     */
+    private Duration cacheTtl = Duration.ofMinutes(5);
+
+    /**
+     * 服务自己调用受保护接口时用的身份, 见 /flux/webclient
+     */
+    private String serviceSubject = "spring-webflux-in-action";
+
+    private List<String> serviceAuthorities = new ArrayList<>(Collections.singletonList("USER"));
+
+    private Duration serviceTokenTtl = Duration.ofHours(1);
+
+}
@@ -0,0 +1,61 @@
+package com.ximo.springwebfluxinaction.server;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+import reactor.netty.Connection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 限制同时存活的连接数, 超出上限的连接在建立后立即关闭
+ * <p>
+ * 数的是 tcp 连接: http/2 的每个 stream 是连接下的子 channel, 都算在所属的连接上
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Slf4j
+public class ConnectionLimiter implements Consumer<Connection> {
+
+    private static final AttributeKey<Boolean> COUNTED = AttributeKey.valueOf("webflux.connectionCounted");
+
+    private final int maxConnections;
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    public ConnectionLimiter(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    @Override
+    public void accept(Connection connection) {
+        // keep-alive 连接上的每个请求, http/2 连接上的每个 stream 都会回调一次, 只在第一次计数
+        final Channel channel = socketChannel(connection);
+        if (channel.attr(COUNTED).setIfAbsent(Boolean.TRUE) != null) {
+            return;
+        }
+        if (activeConnections.incrementAndGet() > maxConnections) {
+            activeConnections.decrementAndGet();
+            log.warn("connection limit {} reached, closing {}", maxConnections, channel.remoteAddress());
+            channel.close();
+            return;
+        }
+        channel.closeFuture().addListener(future -> activeConnections.decrementAndGet());
+    }
+
+    /**
+     * http/2 stream 所属的 tcp 连接, http/1.1 时就是连接本身
+     */
+    static Channel socketChannel(Connection connection) {
+        final Channel channel = connection.channel();
+        return channel instanceof Http2StreamChannel ? channel.parent() : channel;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+}
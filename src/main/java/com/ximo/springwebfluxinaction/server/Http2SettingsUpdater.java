@@ -0,0 +1,55 @@
+package com.ximo.springwebfluxinaction.server;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.DefaultHttp2SettingsFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.util.AttributeKey;
+import reactor.netty.Connection;
+
+import java.util.function.Consumer;
+
+/**
+ * 调整 http/2 连接的 SETTINGS 和接收窗口
+ * <p>
+ * reactor netty 0.9 建连接时固定发默认的 SETTINGS (并发 stream 不限, 窗口 64k), 没有配置入口;
+ * 这里在连接上第一个 stream 到来时再发一次 SETTINGS, 客户端确认后生效, 连接级的窗口用 WINDOW_UPDATE 扩大
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class Http2SettingsUpdater implements Consumer<Connection> {
+
+    private static final AttributeKey<Boolean> UPDATED = AttributeKey.valueOf("webflux.http2SettingsUpdated");
+
+    private final Http2Settings settings;
+
+    private final int connectionWindowIncrement;
+
+    public Http2SettingsUpdater(NettyServerProperties.Http2 properties) {
+        this.settings = new Http2Settings()
+                .maxConcurrentStreams(properties.getMaxConcurrentStreams())
+                .initialWindowSize(properties.getInitialWindowSize());
+        this.connectionWindowIncrement = Math.max(0,
+                properties.getConnectionWindowSize() - Http2CodecUtil.DEFAULT_WINDOW_SIZE);
+    }
+
+    @Override
+    public void accept(Connection connection) {
+        if (!(connection.channel() instanceof Http2StreamChannel)) {
+            return;
+        }
+        final Channel parent = connection.channel().parent();
+        if (parent.attr(UPDATED).setIfAbsent(Boolean.TRUE) != null) {
+            return;
+        }
+        parent.write(new DefaultHttp2SettingsFrame(settings));
+        if (connectionWindowIncrement > 0) {
+            parent.write(new DefaultHttp2WindowUpdateFrame(connectionWindowIncrement));
+        }
+        parent.flush();
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.ximo.springwebfluxinaction.server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import reactor.netty.Connection;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读写都空闲超过 idle timeout 的连接直接关闭
+ * <p>
+ * 只看 all idle, 否则 sse 这种只有服务端在写的长响应会被误杀
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class IdleConnectionHandler extends ChannelInboundHandlerAdapter {
+
+    static final String IDLE_STATE_HANDLER = "webflux.idleState";
+
+    static final String IDLE_CLOSE_HANDLER = "webflux.idleClose";
+
+    /**
+     * 在连接的 pipeline 最前面加上空闲检测, 同一个连接只会加一次; http/2 时加在 tcp 连接上, 不是单个 stream 上
+     */
+    public static void install(Connection connection, Duration idleTimeout) {
+        final ChannelPipeline pipeline = ConnectionLimiter.socketChannel(connection).pipeline();
+        if (pipeline.get(IDLE_STATE_HANDLER) != null) {
+            return;
+        }
+        pipeline
+                .addFirst(IDLE_STATE_HANDLER, new IdleStateHandler(0, 0, idleTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                .addAfter(IDLE_STATE_HANDLER, IDLE_CLOSE_HANDLER, new IdleConnectionHandler());
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+}
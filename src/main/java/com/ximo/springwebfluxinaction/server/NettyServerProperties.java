@@ -0,0 +1,78 @@
+package com.ximo.springwebfluxinaction.server;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * reactor netty 服务端参数
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.netty")
+public class NettyServerProperties {
+
+    /**
+     * event loop(worker) 线程数, 小于等于0时使用 reactor netty 的默认值(cpu 核数)
+     */
+    private int eventLoopThreads = 0;
+
+    /**
+     * boss(select) 线程数
+     */
+    private int selectThreads = 1;
+
+    /**
+     * 同时保持的最大连接数, 超出的新连接会被直接关闭
+     */
+    private int maxConnections = 10_000;
+
+    /**
+     * accept 队列长度
+     */
+    private int backlog = 1024;
+
+    /**
+     * 连接既没有读也没有写的最长时间, 超过后关闭连接
+     */
+    private Duration idleTimeout = Duration.ofSeconds(60);
+
+    /**
+     * classpath 上出现 servlet 容器时是否启动失败
+     */
+    private boolean failOnServletStack = true;
+
+    /**
+     * http/2 的连接参数, 协议本身由 server.http2.enabled 打开: 配置了 server.ssl 时走 h2, 否则走 h2c
+     */
+    private Http2 http2 = new Http2();
+
+    @Data
+    public static class Http2 {
+
+        /**
+         * 单个连接上客户端同时打开的最大 stream 数
+         */
+        private long maxConcurrentStreams = 256;
+
+        /**
+         * 每个 stream 的接收窗口, 字节
+         */
+        private int initialWindowSize = 1024 * 1024;
+
+        /**
+         * 整个连接的接收窗口, 字节, 所有 stream 共用
+         */
+        private int connectionWindowSize = 8 * 1024 * 1024;
+
+        /**
+         * 没有配置 server.ssl 时用启动时生成的自签证书开 tls, 只用于本地调试
+         */
+        private boolean selfSigned = false;
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.ximo.springwebfluxinaction.server;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 启动时检查 classpath, 防止 spring-boot-starter-web 之类的阻塞 servlet 栈又被引进来,
+ * 此时 boot 会优先启动 tomcat, 所有请求都跑在 tomcat 的线程池上
+ * <p>
+ * 通过 {@code webflux.netty.fail-on-servlet-stack=false} 关闭
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ReactiveStackGuard implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    static final List<String> SERVLET_STACK_CLASSES = Arrays.asList(
+            "org.springframework.web.servlet.DispatcherServlet",
+            "org.apache.catalina.startup.Tomcat",
+            "org.eclipse.jetty.servlet.ServletHolder",
+            "io.undertow.servlet.api.DeploymentManager");
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        final Boolean failOnServletStack = event.getEnvironment()
+                .getProperty("webflux.netty.fail-on-servlet-stack", Boolean.class, true);
+        if (failOnServletStack) {
+            final ClassLoader classLoader = event.getSpringApplication().getClassLoader();
+            check(className -> ClassUtils.isPresent(className, classLoader));
+        }
+    }
+
+    static void check(Predicate<String> classPresent) {
+        final List<String> found = SERVLET_STACK_CLASSES.stream()
+                .filter(classPresent)
+                .collect(Collectors.toList());
+        if (!found.isEmpty()) {
+            throw new IllegalStateException("blocking servlet stack found on classpath: " + found
+                    + ", remove spring-boot-starter-web (or set webflux.netty.fail-on-servlet-stack=false)");
+        }
+    }
+
+}
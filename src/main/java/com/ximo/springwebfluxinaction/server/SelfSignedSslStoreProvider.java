@@ -0,0 +1,68 @@
+package com.ximo.springwebfluxinaction.server;
+
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.boot.web.server.SslStoreProvider;
+
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+
+/**
+ * 启动时生成的 localhost 自签证书, 只在内存里, 每次启动都不一样, 只用于本地调试 h2;
+ * 客户端需要信任所有证书, 见 webflux.client.http2.trust-all
+ * <p>
+ * 证书由 netty 生成: jdk 8 用 jdk 内部的 api, jdk 16+ 需要 classpath 上有 bouncycastle
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class SelfSignedSslStoreProvider implements SslStoreProvider {
+
+    private static final String ALIAS = "localhost";
+
+    /**
+     * keystore 只在内存里, 密码只是 KeyManagerFactory 的要求
+     */
+    private static final String PASSWORD = "webflux";
+
+    private final KeyStore keyStore;
+
+    public SelfSignedSslStoreProvider() {
+        try {
+            final SelfSignedCertificate certificate = new SelfSignedCertificate(ALIAS);
+            keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            keyStore.load(null, null);
+            keyStore.setKeyEntry(ALIAS, certificate.key(), PASSWORD.toCharArray(),
+                    new Certificate[]{certificate.cert()});
+            certificate.delete();
+        } catch (CertificateException e) {
+            throw new IllegalStateException("cannot generate self-signed certificate, "
+                    + "configure server.ssl or add bouncycastle to the classpath", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot create key store for self-signed certificate", e);
+        }
+    }
+
+    /**
+     * 打开 tls 的 {@link Ssl} 配置, 和本 provider 一起设置到 web server factory 上
+     */
+    public Ssl ssl() {
+        final Ssl ssl = new Ssl();
+        ssl.setEnabled(true);
+        ssl.setKeyAlias(ALIAS);
+        ssl.setKeyPassword(PASSWORD);
+        return ssl;
+    }
+
+    @Override
+    public KeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    @Override
+    public KeyStore getTrustStore() {
+        return null;
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.ximo.springwebfluxinaction.stage;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
+
+/**
+ * cpu 密集转换的例子: name 换成它的 sha-256 (十六进制), 重复 rounds 次
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ExampleDigest implements Function<ExampleDTO, ExampleDTO> {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final int rounds;
+
+    public ExampleDigest(int rounds) {
+        if (rounds < 1) {
+            throw new IllegalArgumentException("rounds must be positive");
+        }
+        this.rounds = rounds;
+    }
+
+    @Override
+    public ExampleDTO apply(ExampleDTO example) {
+        final MessageDigest digest = DIGESTS.get();
+        byte[] value = example.getName().getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < rounds; i++) {
+            value = digest.digest(value);
+        }
+        return new ExampleDTO(example.getId(), hex(value));
+    }
+
+    private static String hex(byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+}
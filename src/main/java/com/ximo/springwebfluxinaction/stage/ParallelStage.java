@@ -0,0 +1,161 @@
+package com.ximo.springwebfluxinaction.stage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 把 cpu 密集的逐个转换分到多个 rail 上做, 不占 event loop:
+ * <pre>
+ * source -&gt; 按批切分 -&gt; parallel(rails).runOn(scheduler) -&gt; 每批在一个 rail 上转换 -&gt; 合并
+ * </pre>
+ * 每个 rail 只预取一批, 做完才拿下一批, 快的 rail 自然多拿, 慢元素不会让别的 rail 空等;
+ * 需要保持顺序时按批的序号归并, 否则谁先做完先发; 转换抛异常时整批丢弃, 有序时在它之前的批都会先发出
+ * <p>
+ * 批大小按单个元素的平均耗时调整: 便宜的转换用大批摊薄切线程的开销, 贵的用小批让各 rail 负载均匀;
+ * 攒批会等上游, 适合数据库游标, 生成数据这类连续的流, 不适合零星到达的事件流
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ParallelStage<T, R> {
+
+    /**
+     * 平均耗时的平滑系数
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final Function<? super T, ? extends R> transform;
+
+    private final Scheduler scheduler;
+
+    private final int rails;
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final long targetBatchNanos;
+
+    /**
+     * 单个元素的平均耗时, 纳秒; 多个 rail 同时更新会丢掉个别样本, 只是估计值, 不加锁
+     */
+    private volatile double nanosPerElement = -1;
+
+    public ParallelStage(Function<? super T, ? extends R> transform, Scheduler scheduler, int rails,
+                         int minBatchSize, int maxBatchSize, Duration targetBatchTime) {
+        if (rails < 1 || minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("rails and batch sizes must be positive, min <= max");
+        }
+        this.transform = transform;
+        this.scheduler = scheduler;
+        this.rails = rails;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetBatchNanos = targetBatchTime.toNanos();
+    }
+
+    /**
+     * @param ordered 是否按输入顺序输出
+     */
+    public Flux<R> apply(Flux<? extends T> source, boolean ordered) {
+        return Flux.defer(() -> {
+            final Flux<List<T>> batches = Flux.<T>from(source).bufferUntil(batchBoundary());
+            if (!ordered) {
+                return batches.parallel(rails, rails)
+                        .runOn(scheduler, 1)
+                        .map(this::process)
+                        .sequential(1)
+                        .flatMapIterable(Function.identity());
+            }
+            return batches.index(Batch::new)
+                    .parallel(rails, rails)
+                    .runOn(scheduler, 1)
+                    .map(this::process)
+                    .ordered(Comparator.comparingLong(Batch::getIndex), 1)
+                    .flatMapIterable(Batch::getResults);
+        });
+    }
+
+    /**
+     * 每次订阅一个计数器, 攒够当前的批大小就切一批
+     */
+    private Predicate<T> batchBoundary() {
+        final int[] count = new int[1];
+        return element -> {
+            if (++count[0] >= batchSize()) {
+                count[0] = 0;
+                return true;
+            }
+            return false;
+        };
+    }
+
+    /**
+     * 归并会把出错的 rail 当作结束, 接着发后面的批, 最后才报错; 这里把异常留到按顺序轮到这一批时再抛
+     */
+    private Batch process(Batch batch) {
+        try {
+            batch.results = process(batch.input);
+        } catch (RuntimeException e) {
+            batch.error = e;
+        }
+        batch.input = null;
+        return batch;
+    }
+
+    private List<R> process(List<T> batch) {
+        final long start = System.nanoTime();
+        final List<R> result = new ArrayList<>(batch.size());
+        for (T element : batch) {
+            result.add(transform.apply(element));
+        }
+        final double sample = (double) (System.nanoTime() - start) / batch.size();
+        final double previous = nanosPerElement;
+        nanosPerElement = previous < 0 ? sample : previous + SMOOTHING * (sample - previous);
+        return result;
+    }
+
+    int batchSize() {
+        final double cost = nanosPerElement;
+        if (cost < 0) {
+            return minBatchSize;
+        }
+        final double size = targetBatchNanos / Math.max(cost, 1);
+        return (int) Math.max(minBatchSize, Math.min(maxBatchSize, size));
+    }
+
+    private final class Batch {
+
+        private final long index;
+
+        private List<T> input;
+
+        private List<R> results;
+
+        private RuntimeException error;
+
+        Batch(long index, List<T> input) {
+            this.index = index;
+            this.input = input;
+        }
+
+        long getIndex() {
+            return index;
+        }
+
+        List<R> getResults() {
+            if (error != null) {
+                throw error;
+            }
+            return results;
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.ximo.springwebfluxinaction.stage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.parallel")
+public class ParallelStageProperties {
+
+    /**
+     * 并行的 rail 数, 也是线程数; 0 表示和 cpu 核数一样
+     */
+    private int rails = 0;
+
+    /**
+     * 每批元素数的下限, 还没有耗时数据时也用这个
+     */
+    private int minBatchSize = 16;
+
+    /**
+     * 每批元素数的上限, 也限制了每个 rail 上积压的元素数
+     */
+    private int maxBatchSize = 1024;
+
+    /**
+     * 按单个元素的平均耗时调整批大小, 让一批大概处理这么久
+     */
+    private Duration targetBatchTime = Duration.ofMillis(1);
+
+    /**
+     * 不指定时是否按输入顺序输出
+     */
+    private boolean ordered = true;
+
+    /**
+     * /flux/example/digest 每个元素做几次 sha-256
+     */
+    private int digestRounds = 1;
+
+    public int resolveRails() {
+        return rails > 0 ? rails : Runtime.getRuntime().availableProcessors();
+    }
+
+}
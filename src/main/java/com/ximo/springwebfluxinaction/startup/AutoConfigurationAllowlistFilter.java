@@ -0,0 +1,41 @@
+package com.ximo.springwebfluxinaction.startup;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 按 webflux.startup.auto-configurations 过滤自动配置, 不在列表里的连条件都不会解析, 对应的类也不会加载
+ * <p>
+ * 和 spring.autoconfigure.exclude 相反, 列的是要保留的; 依赖升级后新加的自动配置默认不会进来
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class AutoConfigurationAllowlistFilter implements AutoConfigurationImportFilter, EnvironmentAware {
+
+    private Set<String> allowed;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        final StartupProperties properties = Binder.get(environment)
+                .bind(StartupProperties.PREFIX, StartupProperties.class)
+                .orElseGet(StartupProperties::new);
+        this.allowed = new HashSet<>(properties.getAutoConfigurations());
+    }
+
+    @Override
+    public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+        final boolean[] match = new boolean[autoConfigurationClasses.length];
+        for (int i = 0; i < match.length; i++) {
+            match[i] = allowed.isEmpty() || allowed.contains(autoConfigurationClasses[i]);
+        }
+        return match;
+    }
+
+}
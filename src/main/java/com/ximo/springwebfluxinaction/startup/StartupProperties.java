@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.startup;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动相关的参数, 在 context 创建 bean 之前就要用, 由 {@link AutoConfigurationAllowlistFilter} 直接从 Environment 绑定
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+public class StartupProperties {
+
+    public static final String PREFIX = "webflux.startup";
+
+    /**
+     * 只加载这里列出的自动配置 (全限定类名), 为空时不限制; 见 application-fast-startup.yml
+     */
+    private List<String> autoConfigurations = new ArrayList<>();
+
+    /**
+     * false 时 webflux 不创建 hibernate validator, @Valid 参数不再校验; 见 StartupConfig
+     */
+    private boolean beanValidation = true;
+
+}
@@ -0,0 +1,589 @@
+package com.ximo.springwebfluxinaction.store;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的 {@link ExampleDTO} 存储, 数据按列放在堆外, 堆上只有几个对象, 读的时候才生成 ExampleDTO
+ * <p>
+ * 每行一个 id (int) 和 name 在 arena 里的位置 (offset, length; length 为 -1 表示 null), name 按 utf-8 追加到共用的 arena;
+ * id 到行号是开放寻址 (线性探测) 的哈希表, 按 id 排好的行号另存一列, 用来按范围扫描. 只支持写入和覆盖, 覆盖后旧的 name
+ * 留在 arena 里, 下次快照时去掉
+ * <p>
+ * 写入互斥, 读用 {@link StampedLock} 的乐观读, 不加锁也不会阻塞 (可以在 event loop 上调用), 读到写了一半的数据时重读;
+ * 扩容时的复制和重建哈希表在写锁外做, 写锁里只换引用, 读不会在扩容期间一直重读.
+ * 快照是内存映射文件, 加载时直接映射 (MapMode.PRIVATE, 修改不写回文件), 不需要重建索引
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class ExampleStore implements MeterBinder {
+
+    private static final int MAGIC = 0x45585354;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 32;
+
+    private static final int MIN_SLOTS = 16;
+
+    /**
+     * 扫描时每次读出并生成多少个元素, 下游请求了才读下一批
+     */
+    private static final int SCAN_CHUNK = 64;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * 写入之间互斥; 持有它的线程是唯一会修改数据的, 可以不加写锁读当前的数据, 写锁只用来挡住乐观读
+     */
+    private final Object writeMonitor = new Object();
+
+    private final String name;
+
+    /**
+     * 行号 -> id
+     */
+    private ByteBuffer ids;
+
+    /**
+     * 行号 -> (name 在 arena 里的 offset, length)
+     */
+    private ByteBuffer names;
+
+    /**
+     * 按 id 升序排列的行号
+     */
+    private ByteBuffer order;
+
+    /**
+     * 哈希槽 -> 行号 + 1, 0 表示空, 装载率不超过 1/2
+     */
+    private ByteBuffer slots;
+
+    private ByteBuffer arena;
+
+    private int rows;
+
+    private int arenaSize;
+
+    private long garbageBytes;
+
+    /**
+     * @param initialCapacity   初始行数, 不够时翻倍
+     * @param initialArenaBytes name 的初始字节数, 不够时翻倍
+     */
+    public ExampleStore(String name, int initialCapacity, int initialArenaBytes) {
+        if (initialCapacity < 1 || initialArenaBytes < 1) {
+            throw new IllegalArgumentException("initial capacity and arena bytes must be positive");
+        }
+        this.name = name;
+        this.ids = allocate((long) initialCapacity * Integer.BYTES);
+        this.names = allocate((long) initialCapacity * Long.BYTES);
+        this.order = allocate((long) initialCapacity * Integer.BYTES);
+        this.slots = allocate((long) slotsFor(initialCapacity) * Integer.BYTES);
+        this.arena = allocate(initialArenaBytes);
+    }
+
+    private ExampleStore(String name, ByteBuffer ids, ByteBuffer names, ByteBuffer order, ByteBuffer slots,
+                         ByteBuffer arena, int rows, int arenaSize) {
+        this.name = name;
+        this.ids = ids;
+        this.names = names;
+        this.order = order;
+        this.slots = slots;
+        this.arena = arena;
+        this.rows = rows;
+        this.arenaSize = arenaSize;
+    }
+
+    /**
+     * 映射 {@link #snapshot(Path)} 写出的文件, 之后的修改只在内存里; 文件要可写 (MapMode.PRIVATE 的要求)
+     */
+    public static ExampleStore load(String name, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + " is not an example store snapshot");
+            }
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(file + " is not an example store snapshot");
+            }
+            if (header.getInt(8) != byteOrderMarker()) {
+                throw new IOException(file + " was written with a different byte order");
+            }
+            final int rows = header.getInt(12);
+            final int slotCount = header.getInt(16);
+            final int arenaSize = header.getInt(20);
+            final long[] sizes = regionSizes(rows, slotCount, arenaSize);
+            if (channel.size() != HEADER_BYTES + Arrays.stream(sizes).sum()) {
+                throw new IOException(file + " is truncated");
+            }
+            final ByteBuffer[] regions = new ByteBuffer[sizes.length];
+            long position = HEADER_BYTES;
+            for (int i = 0; i < sizes.length; i++) {
+                regions[i] = channel.map(FileChannel.MapMode.PRIVATE, position, sizes[i]).order(ByteOrder.nativeOrder());
+                position += sizes[i];
+            }
+            return new ExampleStore(name, regions[0], regions[1], regions[2], regions[3], regions[4], rows, arenaSize);
+        }
+    }
+
+    /**
+     * 不存在时返回 null
+     */
+    public ExampleDTO get(int id) {
+        return optimisticRead(() -> {
+            final int row = find(id);
+            return row < 0 ? null : materialize(row);
+        });
+    }
+
+    /**
+     * 按 id 顺序读出 id 大于 afterId 的数据, 和 ExampleRepository#findAfter 一样
+     * <p>
+     * 每批都按上一批最后的 id 重新定位, 扫描过程中写入的数据, id 在还没读到的范围里的也会读到
+     *
+     * @param afterId 不包含
+     * @param limit   最多多少条
+     */
+    public Flux<ExampleDTO> findAfter(int afterId, int limit) {
+        return scan(afterId, Integer.MAX_VALUE, limit);
+    }
+
+    /**
+     * 按 id 顺序读出 id 在 [fromId, toId] 之间的数据
+     */
+    public Flux<ExampleDTO> findRange(int fromId, int toId) {
+        return scan(fromId - 1L, toId, Integer.MAX_VALUE);
+    }
+
+    public Flux<ExampleDTO> findAll() {
+        return findRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 已存在的 id 覆盖 name
+     */
+    public void put(ExampleDTO example) {
+        putAll(Collections.singletonList(example));
+    }
+
+    /**
+     * 一次加锁写入一批, 新的 id 排好序后合并到按 id 排列的那一列里; id 递增写入时只是追加
+     */
+    public void putAll(Collection<? extends ExampleDTO> examples) {
+        final byte[][] encoded = new byte[examples.size()][];
+        long arenaRequired = 0;
+        int i = 0;
+        for (ExampleDTO example : examples) {
+            Objects.requireNonNull(example.getId(), "example id");
+            encoded[i] = example.getName() == null ? null : example.getName().getBytes(StandardCharsets.UTF_8);
+            arenaRequired += encoded[i] == null ? 0 : encoded[i].length;
+            i++;
+        }
+        synchronized (writeMonitor) {
+            // 按全是新 id 预留, 写锁里不会再扩容
+            ensureRowCapacity(rows + examples.size());
+            ensureArenaCapacity(arenaSize + arenaRequired);
+            final long stamp = lock.writeLock();
+            try {
+                final long[] added = new long[examples.size()];
+                int count = 0;
+                i = 0;
+                for (ExampleDTO example : examples) {
+                    final int id = example.getId();
+                    final byte[] name = encoded[i++];
+                    final int row = find(id);
+                    if (row >= 0) {
+                        garbageBytes += Math.max(0, names.getInt(row * Long.BYTES + Integer.BYTES));
+                        writeName(row, name);
+                        continue;
+                    }
+                    ids.putInt(rows * Integer.BYTES, id);
+                    writeName(rows, name);
+                    insertSlot(slots, id, rows);
+                    // 高 32 位是 id, 排序后就是按 id 的顺序
+                    added[count++] = ((long) id << 32) | rows;
+                    rows++;
+                }
+                mergeOrder(added, count);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * 按 id 顺序写到 file, 去掉被覆盖的 name; 先写临时文件, 完成后替换
+     */
+    public void snapshot(Path file) throws IOException {
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final long stamp = lock.readLock();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final int liveArena = (int) (arenaSize - garbageBytes);
+            final int slotCount = slotsFor(rows);
+            final long[] sizes = regionSizes(rows, slotCount, liveArena);
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(8, byteOrderMarker())
+                    .putInt(12, rows)
+                    .putInt(16, slotCount)
+                    .putInt(20, liveArena);
+            final MappedByteBuffer[] regions = new MappedByteBuffer[sizes.length];
+            long position = HEADER_BYTES;
+            for (int i = 0; i < sizes.length; i++) {
+                regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, sizes[i]);
+                regions[i].order(ByteOrder.nativeOrder());
+                position += sizes[i];
+            }
+            final ByteBuffer outIds = regions[0];
+            final ByteBuffer outNames = regions[1];
+            final ByteBuffer outOrder = regions[2];
+            final ByteBuffer outSlots = regions[3];
+            final ByteBuffer outArena = regions[4];
+            final ByteBuffer source = arena.duplicate();
+            for (int i = 0; i < rows; i++) {
+                final int row = order.getInt(i * Integer.BYTES);
+                final int id = ids.getInt(row * Integer.BYTES);
+                final int offset = names.getInt(row * Long.BYTES);
+                final int length = names.getInt(row * Long.BYTES + Integer.BYTES);
+                outIds.putInt(i * Integer.BYTES, id);
+                outNames.putInt(i * Long.BYTES, length < 0 ? 0 : outArena.position());
+                outNames.putInt(i * Long.BYTES + Integer.BYTES, length);
+                outOrder.putInt(i * Integer.BYTES, i);
+                // 新文件里的空间是 0, 也就是空槽
+                int slot = hash(id) & (slotCount - 1);
+                while (outSlots.getInt(slot * Integer.BYTES) != 0) {
+                    slot = (slot + 1) & (slotCount - 1);
+                }
+                outSlots.putInt(slot * Integer.BYTES, i + 1);
+                if (length > 0) {
+                    source.limit(offset + length).position(offset);
+                    outArena.put(source);
+                    source.clear();
+                }
+            }
+            header.force();
+            for (MappedByteBuffer region : regions) {
+                region.force();
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int size() {
+        return optimisticRead(() -> rows);
+    }
+
+    /**
+     * arena 里已经使用的字节数, 包括被覆盖的 name
+     */
+    public long getArenaBytes() {
+        return optimisticRead(() -> (long) arenaSize);
+    }
+
+    /**
+     * arena 里被覆盖的 name 占的字节数, 快照时去掉
+     */
+    public long getGarbageBytes() {
+        return optimisticRead(() -> garbageBytes);
+    }
+
+    /**
+     * 堆外 (或者映射的) 空间的总大小, 包括没用到的容量
+     */
+    public long getOffHeapBytes() {
+        return optimisticRead(() -> (long) ids.capacity() + names.capacity() + order.capacity()
+                + slots.capacity() + arena.capacity());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("webflux.store.rows", this, ExampleStore::size)
+                .tag("store", name)
+                .register(registry);
+        Gauge.builder("webflux.store.bytes", this, ExampleStore::getOffHeapBytes)
+                .tag("store", name)
+                .description("off-heap or mapped bytes reserved by the store")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("webflux.store.arena.garbage", this, ExampleStore::getGarbageBytes)
+                .tag("store", name)
+                .description("bytes of overwritten names, reclaimed by the next snapshot")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private Flux<ExampleDTO> scan(long afterId, int toId, int limit) {
+        return Flux.<List<ExampleDTO>, long[]>generate(() -> new long[]{afterId, limit}, (state, sink) -> {
+            final int count = (int) Math.min(state[1], SCAN_CHUNK);
+            final List<ExampleDTO> chunk = count == 0
+                    ? Collections.emptyList() : optimisticRead(() -> readChunk(state[0], toId, count));
+            if (!chunk.isEmpty()) {
+                state[0] = chunk.get(chunk.size() - 1).getId();
+                state[1] -= chunk.size();
+                sink.next(chunk);
+            }
+            if (chunk.size() < count || state[1] == 0) {
+                sink.complete();
+            }
+            return state;
+        }).concatMapIterable(chunk -> chunk, 1);
+    }
+
+    private List<ExampleDTO> readChunk(long afterId, int toId, int count) {
+        final List<ExampleDTO> chunk = new ArrayList<>(count);
+        for (int i = firstAfter(afterId); i < rows && chunk.size() < count; i++) {
+            final int row = order.getInt(i * Integer.BYTES);
+            if (ids.getInt(row * Integer.BYTES) > toId) {
+                break;
+            }
+            chunk.add(materialize(row));
+        }
+        return chunk;
+    }
+
+    /**
+     * @return order 里第一个 id 大于 afterId 的位置
+     */
+    private int firstAfter(long afterId) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (ids.getInt(order.getInt(mid * Integer.BYTES) * Integer.BYTES) > afterId) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private ExampleDTO materialize(int row) {
+        final int offset = names.getInt(row * Long.BYTES);
+        final int length = names.getInt(row * Long.BYTES + Integer.BYTES);
+        String value = null;
+        if (length >= 0) {
+            if (offset < 0 || length > arena.capacity() - offset) {
+                throw new IndexOutOfBoundsException("name out of arena");
+            }
+            final byte[] bytes = new byte[length];
+            final ByteBuffer source = arena.duplicate();
+            source.position(offset);
+            source.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new ExampleDTO(ids.getInt(row * Integer.BYTES), value);
+    }
+
+    /**
+     * @return 行号, 不存在时返回 -1
+     */
+    private int find(int id) {
+        final int mask = slots.capacity() / Integer.BYTES - 1;
+        int slot = hash(id) & mask;
+        // 乐观读到的表可能是乱的, 最多探测整张表
+        for (int probes = 0; probes <= mask; probes++) {
+            final int ref = slots.getInt(slot * Integer.BYTES);
+            if (ref == 0) {
+                return -1;
+            }
+            if (ids.getInt((ref - 1) * Integer.BYTES) == id) {
+                return ref - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static void insertSlot(ByteBuffer slots, int id, int row) {
+        final int mask = slots.capacity() / Integer.BYTES - 1;
+        int slot = hash(id) & mask;
+        while (slots.getInt(slot * Integer.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots.putInt(slot * Integer.BYTES, row + 1);
+    }
+
+    /**
+     * @param bytes utf-8 编码的 name, null 表示 name 为 null; arena 的容量已经在写锁外预留好
+     */
+    private void writeName(int row, byte[] bytes) {
+        if (bytes == null) {
+            names.putInt(row * Long.BYTES, 0);
+            names.putInt(row * Long.BYTES + Integer.BYTES, -1);
+            return;
+        }
+        final ByteBuffer target = arena.duplicate();
+        target.position(arenaSize);
+        target.put(bytes);
+        names.putInt(row * Long.BYTES, arenaSize);
+        names.putInt(row * Long.BYTES + Integer.BYTES, bytes.length);
+        arenaSize += bytes.length;
+    }
+
+    /**
+     * 从后往前把排好序的新行合并进 order, 不需要额外的空间
+     */
+    private void mergeOrder(long[] added, int count) {
+        Arrays.sort(added, 0, count);
+        int existing = rows - count - 1;
+        int write = rows - 1;
+        for (int i = count - 1; i >= 0; i--) {
+            final int id = (int) (added[i] >> 32);
+            while (existing >= 0) {
+                final int row = order.getInt(existing * Integer.BYTES);
+                if (ids.getInt(row * Integer.BYTES) < id) {
+                    break;
+                }
+                order.putInt(write-- * Integer.BYTES, row);
+                existing--;
+            }
+            order.putInt(write-- * Integer.BYTES, (int) added[i]);
+        }
+    }
+
+    /**
+     * 持有 writeMonitor 时调用: 在写锁外复制出新的列和哈希表, 写锁里只换引用
+     */
+    private void ensureRowCapacity(int required) {
+        ByteBuffer grownIds = ids;
+        ByteBuffer grownNames = names;
+        ByteBuffer grownOrder = order;
+        ByteBuffer grownSlots = slots;
+        final int capacity = ids.capacity() / Integer.BYTES;
+        if (required > capacity) {
+            final long grown = Math.max(required, (long) capacity * 2);
+            grownIds = grow(ids, grown * Integer.BYTES);
+            grownNames = grow(names, grown * Long.BYTES);
+            grownOrder = grow(order, grown * Integer.BYTES);
+        }
+        if (slotsFor(required) > slots.capacity() / Integer.BYTES) {
+            grownSlots = allocate((long) slotsFor(required) * Integer.BYTES);
+            for (int row = 0; row < rows; row++) {
+                insertSlot(grownSlots, ids.getInt(row * Integer.BYTES), row);
+            }
+        }
+        if (grownIds == ids && grownSlots == slots) {
+            return;
+        }
+        final long stamp = lock.writeLock();
+        try {
+            ids = grownIds;
+            names = grownNames;
+            order = grownOrder;
+            slots = grownSlots;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 持有 writeMonitor 时调用, 和 {@link #ensureRowCapacity(int)} 一样只在写锁里换引用
+     */
+    private void ensureArenaCapacity(long required) {
+        if (required <= arena.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("example store arena is full, " + arenaSize + " bytes used");
+        }
+        final ByteBuffer grown = grow(arena,
+                Math.min(Integer.MAX_VALUE, Math.max(required, (long) arena.capacity() * 2)));
+        final long stamp = lock.writeLock();
+        try {
+            arena = grown;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 写入时读失败的重读; 写锁里只有一批数据的写入和换引用, 没有扩容时的复制, 这里只自旋, 不挂起线程
+     */
+    private <T> T optimisticRead(Supplier<T> read) {
+        while (true) {
+            final long stamp = lock.tryOptimisticRead();
+            if (stamp == 0L) {
+                continue;
+            }
+            try {
+                final T result = read.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // 读到的是写了一半的数据
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, long capacity) {
+        final ByteBuffer grown = allocate(capacity);
+        final ByteBuffer source = buffer.duplicate();
+        source.clear();
+        grown.put(source);
+        return grown;
+    }
+
+    private static ByteBuffer allocate(long capacity) {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("example store column exceeds 2GB");
+        }
+        return ByteBuffer.allocateDirect((int) capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * 装载率不超过 1/2 的 2 的幂
+     */
+    private static int slotsFor(int rows) {
+        final long required = Math.max(MIN_SLOTS, (long) rows * 2);
+        return (int) Math.min(1L << 30, Long.highestOneBit(required - 1) << 1);
+    }
+
+    private static int hash(int id) {
+        final int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long[] regionSizes(int rows, int slotCount, int arenaSize) {
+        return new long[]{(long) rows * Integer.BYTES, (long) rows * Long.BYTES, (long) rows * Integer.BYTES,
+                (long) slotCount * Integer.BYTES, arenaSize};
+    }
+
+    private static int byteOrderMarker() {
+        return ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 2;
+    }
+
+}
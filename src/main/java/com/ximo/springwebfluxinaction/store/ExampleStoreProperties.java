@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@Data
+@ConfigurationProperties(prefix = "webflux.store")
+public class ExampleStoreProperties {
+
+    /**
+     * 初始行数, 不够时翻倍
+     */
+    private int initialCapacity = 1024;
+
+    /**
+     * name 的初始字节数, 不够时翻倍
+     */
+    private int initialArenaBytes = 64 * 1024;
+
+    /**
+     * 快照文件, 启动时存在就直接映射, 关闭时写出; 为空时不持久化
+     */
+    private String snapshot;
+
+}
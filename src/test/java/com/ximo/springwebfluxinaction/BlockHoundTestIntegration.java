@@ -0,0 +1,29 @@
+package com.ximo.springwebfluxinaction;
+
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.integration.BlockHoundIntegration;
+
+/**
+ * 测试时由 blockhound-junit-platform 安装 BlockHound, event loop 和 parallel 线程上的阻塞调用直接抛
+ * {@link reactor.blockhound.BlockingOperationError}; 这里只放行已知无害的调用
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+public class BlockHoundTestIntegration implements BlockHoundIntegration {
+
+    @Override
+    public void applyTo(BlockHound.Builder builder) {
+        // event loop 关闭时每 100ms 检查一次是否还有任务, 新版 netty 自己放行了
+        builder.allowBlockingCallsInside("io.netty.util.concurrent.SingleThreadEventExecutor", "confirmShutdown");
+        // jdk 的 tls 握手偶尔要从 /dev/urandom 补充随机数, 同上
+        builder.allowBlockingCallsInside("io.netty.handler.ssl.SslHandler", "runAllDelegatedTasks");
+        builder.allowBlockingCallsInside("sun.security.ssl.SSLEngineImpl", "unwrap");
+        builder.allowBlockingCallsInside("sun.security.ssl.SSLEngineImpl", "wrap");
+        // MessageHeaders 类初始化时 id 生成器用 SecureRandom 取一次种子, 由 rsocket 的第一个 SETUP 在 event loop 上触发;
+        // 构造器不能放行, 放行外层建消息头的方法
+        builder.allowBlockingCallsInside(
+                "org.springframework.messaging.rsocket.annotation.support.MessagingRSocket", "createHeaders");
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.ximo.springwebfluxinaction.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class AdmissionWebFilterTest {
+
+    private static final WebFilterChain OK = exchange -> {
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        return exchange.getResponse().setComplete();
+    };
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testClientLimit() {
+        final AdmissionProperties properties = new AdmissionProperties();
+        properties.setClientPermitsPerSecond(1);
+        properties.setClientBurst(2);
+        properties.setClientIdHeader("X-Client-Id");
+        final AdmissionWebFilter filter = new AdmissionWebFilter(properties, registry);
+
+        assertThat(status(filter, request("/example", "a"), OK)).isEqualTo(HttpStatus.OK);
+        assertThat(status(filter, request("/example", "a"), OK)).isEqualTo(HttpStatus.OK);
+
+        final MockServerWebExchange rejected = MockServerWebExchange.from(request("/example", "a"));
+        filter.filter(rejected, OK).block();
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        // 其他客户端和不限流的路径不受影响
+        assertThat(status(filter, request("/example", "b"), OK)).isEqualTo(HttpStatus.OK);
+        assertThat(status(filter, request("/actuator/health", "a"), OK)).isEqualTo(HttpStatus.OK);
+        assertThat(registry.get("webflux.admission.rejected").tag("reason", "client").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testRouteLimit() {
+        final AdmissionProperties.RouteLimit route = new AdmissionProperties.RouteLimit();
+        route.setPattern("/flux/**");
+        route.setPermitsPerSecond(1);
+        route.setBurst(1);
+        final AdmissionProperties properties = new AdmissionProperties();
+        properties.setRoutes(Collections.singletonList(route));
+        final AdmissionWebFilter filter = new AdmissionWebFilter(properties, registry);
+
+        assertThat(status(filter, request("/flux/example", "a"), OK)).isEqualTo(HttpStatus.OK);
+        assertThat(status(filter, request("/flux/example", "b"), OK)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(status(filter, request("/example", "b"), OK)).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void testConcurrencyLimitReleasedOnCancel() {
+        final AdmissionProperties properties = new AdmissionProperties();
+        properties.getConcurrency().setInitialLimit(1);
+        properties.getConcurrency().setMinLimit(1);
+        final AdmissionWebFilter filter = new AdmissionWebFilter(properties, registry);
+
+        // 一直不结束的请求占住唯一的名额
+        final Disposable pending = filter.filter(MockServerWebExchange.from(request("/flux/example", "a")),
+                exchange -> Mono.never()).subscribe();
+        assertThat(filter.getLimiter().getInFlight()).isEqualTo(1);
+        assertThat(status(filter, request("/example", "b"), OK)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        pending.dispose();
+        assertThat(filter.getLimiter().getInFlight()).isZero();
+        assertThat(status(filter, request("/example", "b"), OK)).isEqualTo(HttpStatus.OK);
+    }
+
+    /**
+     * 内部调用不占客户端令牌桶, 也不占并发名额
+     */
+    @Test
+    void testInternalRequestBypasses() {
+        final AdmissionProperties properties = new AdmissionProperties();
+        properties.setClientPermitsPerSecond(1);
+        properties.setClientBurst(1);
+        properties.getConcurrency().setInitialLimit(1);
+        properties.getConcurrency().setMinLimit(1);
+        final AdmissionWebFilter filter = new AdmissionWebFilter(properties, registry,
+                request -> request.getHeaders().containsKey("X-Internal"));
+
+        final Disposable pending = filter.filter(MockServerWebExchange.from(request("/flux/webclient", "a")),
+                exchange -> Mono.never()).subscribe();
+        final MockServerHttpRequest internal = MockServerHttpRequest.get("/flux/example")
+                .header("X-Client-Id", "a")
+                .header("X-Internal", "true")
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 12345))
+                .build();
+        assertThat(status(filter, internal, OK)).isEqualTo(HttpStatus.OK);
+        assertThat(status(filter, internal, OK)).isEqualTo(HttpStatus.OK);
+        assertThat(filter.getLimiter().getInFlight()).isEqualTo(1);
+        pending.dispose();
+    }
+
+    /**
+     * 流式响应提交响应头时就归还名额
+     */
+    @Test
+    void testStreamingReleasesOnCommit() {
+        final AdmissionProperties properties = new AdmissionProperties();
+        properties.getConcurrency().setInitialLimit(1);
+        properties.getConcurrency().setMinLimit(1);
+        final AdmissionWebFilter filter = new AdmissionWebFilter(properties, registry);
+
+        final Disposable stream = filter.filter(MockServerWebExchange.from(request("/flux/stream", "a")),
+                exchange -> {
+                    exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_STREAM_JSON);
+                    return exchange.getResponse().setComplete().then(Mono.never());
+                }).subscribe();
+        assertThat(filter.getLimiter().getInFlight()).isZero();
+        assertThat(status(filter, request("/example", "b"), OK)).isEqualTo(HttpStatus.OK);
+
+        stream.dispose();
+        assertThat(filter.getLimiter().getInFlight()).isZero();
+    }
+
+    private static MockServerHttpRequest request(String path, String client) {
+        return MockServerHttpRequest.get(path)
+                .header("X-Client-Id", client)
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 12345))
+                .build();
+    }
+
+    private static HttpStatus status(AdmissionWebFilter filter, MockServerHttpRequest request, WebFilterChain chain) {
+        final MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).block();
+        return exchange.getResponse().getStatusCode();
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.ximo.springwebfluxinaction.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class GradientConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void testLimitGrowsWhenLatencyIsStable() {
+        final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 1, 100, 0.2, 100);
+        acquireAll(limiter);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(RTT);
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(50, 5, 100, 0.2, 100);
+        acquireAll(limiter);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(RTT);
+        }
+        final int stable = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(RTT * 10);
+        }
+        assertThat(limiter.getLimit()).isLessThan(stable / 2).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void testRejectAboveLimit() {
+        final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(2, 1, 100, 0.2, 100);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    /**
+     * 占满上限, 不然请求太少时上限不会变
+     */
+    private static void acquireAll(GradientConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // 占满
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.ximo.springwebfluxinaction.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong(Long.MAX_VALUE - TimeUnit.SECONDS.toNanos(1));
+
+    @Test
+    void testBurstThenRate() {
+        final TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+        assertThat(acquired(bucket, 100)).isEqualTo(5);
+        // 每 100ms 补一个
+        assertThat(bucket.tryAcquire()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(acquired(bucket, 100)).isEqualTo(2);
+    }
+
+    @Test
+    void testIdleRefillsUpToBurst() {
+        final TokenBucket bucket = new TokenBucket(10, 5, now::get);
+        assertThat(acquired(bucket, 5)).isEqualTo(5);
+
+        // 跨过 nanoTime 溢出也一样
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(acquired(bucket, 100)).isEqualTo(5);
+    }
+
+    private static long acquired(TokenBucket bucket, int times) {
+        return IntStream.range(0, times)
+                .filter(i -> bucket.tryAcquire() == 0)
+                .count();
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.ximo.springwebfluxinaction.batch;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class MicroBatcherTest {
+
+    private MicroBatchProperties properties(int maxBatchSize, Duration linger) {
+        final MicroBatchProperties properties = new MicroBatchProperties();
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setLinger(linger);
+        properties.setMaxConcurrentBatches(1);
+        return properties;
+    }
+
+    @Test
+    void testBatchBySize() {
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        final MicroBatcher<Integer> batcher = new MicroBatcher<>(
+                batch -> Mono.fromRunnable(() -> batches.add(batch)), properties(4, Duration.ofSeconds(10)));
+
+        StepVerifier.create(batcher.submitAll(Flux.range(0, 8)))
+                .expectNext(8L)
+                .verifyComplete();
+
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).hasSize(4);
+        assertThat(batcher.getPending()).isZero();
+    }
+
+    @Test
+    void testBatchByLinger() {
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        final MicroBatcher<Integer> batcher = new MicroBatcher<>(
+                batch -> Mono.fromRunnable(() -> batches.add(batch)), properties(100, Duration.ofMillis(50)));
+
+        // 攒不满一批, 等 linger 之后提交
+        StepVerifier.create(batcher.submitAll(Flux.range(0, 3)))
+                .expectNext(3L)
+                .verifyComplete();
+
+        assertThat(batches).containsExactly(Arrays.asList(0, 1, 2));
+    }
+
+    @Test
+    void testBatchFailure() {
+        final MicroBatcher<Integer> batcher = new MicroBatcher<>(
+                batch -> Mono.error(new IllegalStateException("boom")), properties(2, Duration.ofMillis(10)));
+
+        StepVerifier.create(batcher.submit(1))
+                .verifyErrorMessage("boom");
+
+        // 失败之后还能继续接收
+        StepVerifier.create(batcher.submit(2))
+                .verifyErrorMessage("boom");
+    }
+
+    @Test
+    void testRejectWhenTooManyPending() {
+        final MicroBatchProperties properties = properties(10, Duration.ofSeconds(10));
+        properties.setMaxPending(1);
+        final MicroBatcher<Integer> batcher = new MicroBatcher<>(batch -> Mono.never(), properties);
+
+        batcher.submit(1).subscribe();
+
+        StepVerifier.create(batcher.submit(2))
+                .verifyError(BatchRejectedException.class);
+    }
+
+    /**
+     * dispose 之前收到的照常提交, 之后的直接失败, 不会一直挂着
+     */
+    @Test
+    void testRejectAfterDispose() {
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        final MicroBatcher<Integer> batcher = new MicroBatcher<>(
+                batch -> Mono.fromRunnable(() -> batches.add(batch)), properties(100, Duration.ofSeconds(10)));
+
+        final StepVerifier accepted = StepVerifier.create(batcher.submit(1))
+                .expectComplete()
+                .verifyLater();
+        batcher.dispose();
+
+        accepted.verify(Duration.ofSeconds(5));
+        StepVerifier.create(batcher.submit(2))
+                .expectErrorMessage("batcher is disposed")
+                .verify(Duration.ofSeconds(5));
+        assertThat(batches).containsExactly(Collections.singletonList(1));
+        assertThat(batcher.getPending()).isZero();
+    }
+
+}
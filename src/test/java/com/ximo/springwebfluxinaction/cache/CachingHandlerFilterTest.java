@@ -0,0 +1,103 @@
+package com.ximo.springwebfluxinaction.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CachingHandlerFilterTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidateAll();
+    }
+
+    @Test
+    void testEtagAndNotModified() {
+        final String etag = webTestClient.get()
+                .uri("/example")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("hello webflux router function")
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertThat(etag).isNotNull();
+
+        webTestClient.get()
+                .uri("/example")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag);
+
+        webTestClient.get()
+                .uri("/cache/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ResponseCacheStats.class)
+                .value(stats -> {
+                    assertThat(stats.getMissCount()).isEqualTo(1);
+                    assertThat(stats.getHitCount()).isEqualTo(1);
+                    assertThat(stats.getNotModifiedCount()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void testIfNoneMatchList() {
+        final String etag = "\"abc\"";
+
+        assertThat(CachingHandlerFilter.matchesIfNoneMatch(ifNoneMatch(etag), etag)).isTrue();
+        assertThat(CachingHandlerFilter.matchesIfNoneMatch(ifNoneMatch("\"x\", " + etag), etag)).isTrue();
+        assertThat(CachingHandlerFilter.matchesIfNoneMatch(ifNoneMatch("W/" + etag), etag)).isTrue();
+        assertThat(CachingHandlerFilter.matchesIfNoneMatch(ifNoneMatch("*"), etag)).isTrue();
+        assertThat(CachingHandlerFilter.matchesIfNoneMatch(ifNoneMatch("\"x\", \"y\""), etag)).isFalse();
+        assertThat(CachingHandlerFilter.matchesIfNoneMatch(ifNoneMatch("abc"), etag)).isFalse();
+        assertThat(CachingHandlerFilter.matchesIfNoneMatch(new HttpHeaders(), etag)).isFalse();
+    }
+
+    @Test
+    void testConcurrentMissLoadsOnce() {
+        final ResponseCache cache = new CaffeineResponseCache(1024, Duration.ofMinutes(1));
+        final AtomicInteger loads = new AtomicInteger();
+        final CachedResponse response = new CachedResponse(HttpStatus.OK, new HttpHeaders(), new byte[]{1}, "\"1\"");
+
+        final Long count = Flux.range(0, 100)
+                .flatMap(i -> cache.get("key", () -> Mono.fromSupplier(loads::incrementAndGet)
+                        .delayElement(Duration.ofMillis(100))
+                        .thenReturn(response)))
+                .count()
+                .block();
+
+        assertThat(count).isEqualTo(100);
+        assertThat(loads).hasValue(1);
+    }
+
+    private static HttpHeaders ifNoneMatch(String value) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_NONE_MATCH, value);
+        return headers;
+    }
+
+}
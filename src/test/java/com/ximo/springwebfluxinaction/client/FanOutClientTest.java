@@ -0,0 +1,86 @@
+package com.ximo.springwebfluxinaction.client;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.security.ServiceTokenExchangeFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FanOutClientTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClientFactory webClientFactory;
+
+    @Autowired
+    private ServiceTokenExchangeFilter serviceTokenExchangeFilter;
+
+    private FanOutClient fanOutClient;
+
+    @BeforeEach
+    void setUp() {
+        final ProxyProperties properties = new ProxyProperties();
+        properties.setConcurrency(2);
+        properties.setPrefetch(4);
+        fanOutClient = new FanOutClient(webClientFactory.builder()
+                .baseUrl("http://localhost:" + port)
+                .filter(serviceTokenExchangeFilter)
+                .build(), properties);
+    }
+
+    @Test
+    void testFanOutOrdered() {
+        StepVerifier.create(fanOutClient.fanOut(
+                Arrays.asList("/flux/example?count=3", "/flux/example?count=2", "/flux/example?count=1"),
+                ExampleDTO.class, true))
+                .expectNext(new ExampleDTO(0, "name0"), new ExampleDTO(1, "name1"), new ExampleDTO(2, "name2"))
+                .expectNext(new ExampleDTO(0, "name0"), new ExampleDTO(1, "name1"))
+                .expectNext(new ExampleDTO(0, "name0"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testFanOutBackpressure() {
+        // 上游各有十万个, 下游只要 10 个, 不会把上游全部读完
+        StepVerifier.create(fanOutClient.fanOut(
+                Arrays.asList("/flux/example?count=100000", "/flux/example?count=100000"),
+                ExampleDTO.class, false), 0)
+                .thenRequest(10)
+                .expectNextCount(10)
+                .thenCancel()
+                .verify();
+    }
+
+    /**
+     * 同时进行的相同请求共用一次上游订阅, 每个请求都收到完整的响应
+     */
+    @Test
+    void testConcurrentIdenticalRequestsShareUpstream() {
+        final SingleFlight<String> singleFlight = fanOutClient.getSingleFlight();
+        StepVerifier.create(Flux.range(0, 20)
+                .flatMap(i -> fanOutClient.fanOut(Collections.singletonList("/flux/example?count=50"),
+                        ExampleDTO.class, true).collectList(), 20))
+                .thenConsumeWhile(examples -> examples.size() == 50)
+                .verifyComplete();
+        assertThat(singleFlight.getLeaders() + singleFlight.getJoined()).isEqualTo(20);
+        assertThat(singleFlight.getLeaders()).isLessThan(20);
+        assertThat(singleFlight.getInFlight()).isZero();
+    }
+
+}
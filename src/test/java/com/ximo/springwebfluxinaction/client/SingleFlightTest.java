@@ -0,0 +1,191 @@
+package com.ximo.springwebfluxinaction.client;
+
+import com.ximo.springwebfluxinaction.resilience.Deadline;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class SingleFlightTest {
+
+    private final AtomicInteger subscriptions = new AtomicInteger();
+
+    @Test
+    void testConcurrentRequestsShareOneUpstream() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>("test", 100, 16, Duration.ofSeconds(5));
+        final Flux<Integer> upstream = counted(Flux.range(0, 5).delaySubscription(Duration.ofMillis(100)));
+
+        StepVerifier.create(Flux.range(0, 10)
+                .flatMap(i -> singleFlight.execute("key", () -> upstream).collectList()))
+                .thenConsumeWhile(result -> result.equals(Arrays.asList(0, 1, 2, 3, 4)))
+                .verifyComplete();
+        assertThat(subscriptions).hasValue(1);
+        assertThat(singleFlight.getLeaders()).isEqualTo(1);
+        assertThat(singleFlight.getJoined()).isEqualTo(9);
+        assertThat(singleFlight.getInFlight()).isZero();
+
+        // 完成之后不再共用
+        StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNextCount(5)
+                .verifyComplete();
+        assertThat(subscriptions).hasValue(2);
+    }
+
+    @Test
+    void testMaxFanIn() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>("test", 3, 16, Duration.ofSeconds(5));
+        final Flux<Integer> upstream = counted(Flux.range(0, 5).delaySubscription(Duration.ofMillis(100)));
+
+        StepVerifier.create(Flux.range(0, 10)
+                .flatMap(i -> singleFlight.execute("key", () -> upstream).count()))
+                .thenConsumeWhile(count -> count == 5)
+                .verifyComplete();
+        assertThat(subscriptions).hasValue(4);
+    }
+
+    @Test
+    void testStaleFlightNotJoined() throws InterruptedException {
+        final SingleFlight<String> singleFlight = new SingleFlight<>("test", 100, 16, Duration.ofMillis(10));
+        final EmitterProcessor<Integer> processor = EmitterProcessor.create();
+        final Flux<Integer> upstream = counted(processor);
+
+        final StepVerifier first = StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNext(1)
+                .expectComplete()
+                .verifyLater();
+        Thread.sleep(50);
+        final StepVerifier second = StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNext(1)
+                .expectComplete()
+                .verifyLater();
+        assertThat(subscriptions).hasValue(2);
+
+        processor.onNext(1);
+        processor.onComplete();
+        first.verify(Duration.ofSeconds(1));
+        second.verify(Duration.ofSeconds(1));
+    }
+
+    /**
+     * 上游发出的元素超过重放缓冲后, 新请求不再加入, 已经加入的不受影响
+     */
+    @Test
+    void testReplayBufferExceeded() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>("test", 100, 2, Duration.ofSeconds(5));
+        final EmitterProcessor<Integer> processor = EmitterProcessor.create();
+        final Flux<Integer> upstream = counted(processor);
+
+        final StepVerifier first = StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNext(0, 1, 2, 3)
+                .expectComplete()
+                .verifyLater();
+        processor.onNext(0);
+        // 还在缓冲里, 从头重放
+        final StepVerifier joined = StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNext(0, 1, 2, 3)
+                .expectComplete()
+                .verifyLater();
+        processor.onNext(1);
+        final StepVerifier late = StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNext(2, 3)
+                .expectComplete()
+                .verifyLater();
+        assertThat(subscriptions).hasValue(2);
+
+        processor.onNext(2);
+        processor.onNext(3);
+        processor.onComplete();
+        first.verify(Duration.ofSeconds(1));
+        joined.verify(Duration.ofSeconds(1));
+        late.verify(Duration.ofSeconds(1));
+        assertThat(singleFlight.getInFlight()).isZero();
+    }
+
+    /**
+     * 消费慢的请求积压超过重放缓冲后改为单独请求, 跳过已经收到的元素, 共用的订阅不受影响
+     */
+    @Test
+    void testSlowSubscriberFallsBack() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>("test", 100, 2, Duration.ofSeconds(5));
+        final Flux<Integer> upstream = counted(Flux.range(0, 10).delaySubscription(Duration.ofMillis(100)));
+
+        final StepVerifier leader = StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNextCount(10)
+                .expectComplete()
+                .verifyLater();
+        StepVerifier.create(singleFlight.execute("key", () -> upstream), 1)
+                .expectNext(0)
+                .thenAwait(Duration.ofMillis(300))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(1, 2, 3, 4, 5, 6, 7, 8, 9)
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        leader.verify(Duration.ofSeconds(1));
+        assertThat(subscriptions).hasValue(2);
+        assertThat(singleFlight.getLagged()).isEqualTo(1);
+    }
+
+    /**
+     * 共用的上游订阅不带第一个请求的截止时间, 第一个请求超时不影响加入的请求
+     */
+    @Test
+    void testLeaderDeadlineNotShared() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>("test", 100, 16, Duration.ofSeconds(5));
+        final AtomicBoolean deadlineSeen = new AtomicBoolean();
+        final Flux<Integer> upstream = counted(Flux.deferWithContext(context -> {
+            deadlineSeen.set(context.hasKey(Deadline.class));
+            return Flux.range(0, 5).delaySubscription(Duration.ofMillis(200));
+        }));
+
+        final StepVerifier leader = StepVerifier.create(singleFlight.execute("key", () -> upstream)
+                .subscriberContext(Context.of(Deadline.class, Deadline.after(Duration.ofMillis(50)))))
+                .expectError(TimeoutException.class)
+                .verifyLater();
+        StepVerifier.create(singleFlight.execute("key", () -> upstream))
+                .expectNext(0, 1, 2, 3, 4)
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        leader.verify(Duration.ofSeconds(1));
+        assertThat(subscriptions).hasValue(1);
+        assertThat(deadlineSeen).isFalse();
+    }
+
+    @Test
+    void testErrorReachesAllRequests() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>("test", 100, 16, Duration.ofSeconds(5));
+        final Flux<Integer> upstream = counted(Flux.<Integer>error(new IllegalStateException("upstream down"))
+                .delaySubscription(Duration.ofMillis(100)));
+
+        final List<Throwable> errors = Flux.range(0, 5)
+                .flatMap(i -> singleFlight.execute("key", () -> upstream).materialize())
+                .filter(signal -> signal.isOnError())
+                .map(signal -> signal.getThrowable())
+                .collectList()
+                .block(Duration.ofSeconds(1));
+        assertThat(errors).hasSize(5).allSatisfy(e -> assertThat(e).hasMessage("upstream down"));
+        assertThat(subscriptions).hasValue(1);
+        assertThat(singleFlight.getInFlight()).isZero();
+    }
+
+    private <T> Flux<T> counted(Flux<T> source) {
+        return Flux.defer(() -> {
+            subscriptions.incrementAndGet();
+            return source;
+        });
+    }
+
+}
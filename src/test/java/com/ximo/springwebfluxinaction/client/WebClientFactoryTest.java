@@ -0,0 +1,89 @@
+package com.ximo.springwebfluxinaction.client;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "webflux.client.http2.enabled=false")
+class WebClientFactoryTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClientFactory webClientFactory;
+
+    @Autowired
+    private ReactorResourceFactory reactorResourceFactory;
+
+    /**
+     * 读写超时每个请求都挂上, 请求结束就拿掉: 放回连接池的空闲连接过了 read-timeout 还能复用,
+     * 复用的连接上读超时照样生效. 服务端返回客户端的端口, 同一个端口就是同一个连接
+     */
+    @Test
+    void testReadTimeoutPerRequest() throws Exception {
+        final DisposableServer server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/port", (request, response) -> response.sendString(
+                                Mono.just(String.valueOf(request.remoteAddress().getPort()))))
+                        .get("/slow", (request, response) -> response.sendString(Flux.concat(Mono.just("first"),
+                                Mono.delay(Duration.ofMillis(600)).map(tick -> "second")))))
+                .bindNow();
+        final WebClientProperties properties = new WebClientProperties();
+        properties.setReadTimeout(Duration.ofMillis(200));
+        properties.getHttp2().setEnabled(false);
+        properties.getPool().setName("read-timeout-test");
+        final WebClientFactory factory = new WebClientFactory(properties, reactorResourceFactory, WebClient::builder);
+        try {
+            final WebClient webClient = factory.create("http://localhost:" + server.port());
+            final String first = webClient.get().uri("/port").retrieve().bodyToMono(String.class).block();
+            Thread.sleep(600);
+            final String second = webClient.get().uri("/port").retrieve().bodyToMono(String.class).block();
+            assertThat(second).isEqualTo(first);
+
+            StepVerifier.create(webClient.get().uri("/slow").retrieve().bodyToMono(String.class))
+                    .expectError(ReadTimeoutException.class)
+                    .verify(Duration.ofSeconds(5));
+        } finally {
+            factory.destroy();
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void testPoolSnapshot() {
+        final List<ConnectionPoolSnapshot> pools = webClientFactory.create("http://localhost:" + port)
+                .get()
+                .uri("/client/pool")
+                .retrieve()
+                .bodyToFlux(ConnectionPoolSnapshot.class)
+                .collectList()
+                .block();
+
+        // 请求自己时连接池已经创建, 当前连接正在使用中; http/2 时不经过这个连接池
+        assertThat(pools).hasSize(1);
+        assertThat(pools.get(0).getPoolName()).isEqualTo("webflux-client");
+        assertThat(pools.get(0).getActive()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.ximo.springwebfluxinaction.codec;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.Getter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2CodecSupport;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_NDJSON;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_SMILE;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_STREAM_SMILE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class BatchingJackson2EncoderTest {
+
+    private static final ResolvableType EXAMPLE_TYPE = ResolvableType.forClass(ExampleDTO.class);
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final TrackingBufferFactory bufferFactory = new TrackingBufferFactory();
+
+    private final BatchingJackson2Encoder encoder = new BatchingJackson2Encoder(objectMapper, BUFFER_SIZE,
+            Collections.singletonList(APPLICATION_NDJSON), MediaType.APPLICATION_JSON, APPLICATION_NDJSON);
+
+    /**
+     * 每个用例结束时分配过的 buffer 都必须已经释放
+     */
+    @AfterEach
+    void checkLeaks() {
+        bufferFactory.assertAllReleased();
+    }
+
+    @Test
+    void testJsonArray() throws Exception {
+        final List<ExampleDTO> examples = examples(1000);
+
+        final List<DataBuffer> buffers = encoder.encode(Flux.fromIterable(examples), bufferFactory, EXAMPLE_TYPE,
+                MediaType.APPLICATION_JSON, null).collectList().block();
+
+        // 多个元素共用一个 buffer, 除了最后一个都写满了
+        assertThat(buffers).hasSizeBetween(2, examples.size() / 10);
+        buffers.subList(0, buffers.size() - 1)
+                .forEach(buffer -> assertThat(buffer.readableByteCount()).isGreaterThanOrEqualTo(BUFFER_SIZE));
+        assertThat(join(buffers)).isEqualTo(objectMapper.writeValueAsString(examples));
+    }
+
+    @Test
+    void testEmptyJsonArray() {
+        final List<DataBuffer> buffers = encoder.encode(Flux.empty(), bufferFactory, EXAMPLE_TYPE,
+                MediaType.APPLICATION_JSON, null).collectList().block();
+
+        assertThat(join(buffers)).isEqualTo("[]");
+    }
+
+    @Test
+    void testNdjson() throws Exception {
+        final List<ExampleDTO> examples = examples(100);
+
+        final List<DataBuffer> buffers = encoder.encode(Flux.fromIterable(examples), bufferFactory, EXAMPLE_TYPE,
+                APPLICATION_NDJSON, null).collectList().block();
+
+        final StringBuilder expected = new StringBuilder();
+        for (ExampleDTO example : examples) {
+            expected.append(objectMapper.writeValueAsString(example)).append('\n');
+        }
+        assertThat(join(buffers)).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void testSmileStreamRoundTrip() {
+        final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        final BatchingJackson2Encoder smileEncoder = new BatchingJackson2Encoder(smileMapper, BUFFER_SIZE,
+                Collections.singletonList(APPLICATION_STREAM_SMILE), APPLICATION_SMILE, APPLICATION_STREAM_SMILE);
+        final List<ExampleDTO> examples = examples(1000);
+
+        final Flux<DataBuffer> encoded = smileEncoder.encode(Flux.fromIterable(examples), bufferFactory, EXAMPLE_TYPE,
+                APPLICATION_STREAM_SMILE, null);
+        final Flux<Object> decoded = new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE)
+                .decode(encoded, EXAMPLE_TYPE, APPLICATION_STREAM_SMILE, Collections.emptyMap());
+
+        StepVerifier.create(decoded)
+                .expectNextSequence(examples)
+                .verifyComplete();
+    }
+
+    /**
+     * 上游停住时没写满的 buffer 等 maxLinger 之后发出, 不会一直攒着
+     */
+    @Test
+    void testLingerFlush() {
+        final BatchingJackson2Encoder lingerEncoder = new BatchingJackson2Encoder(objectMapper, BUFFER_SIZE,
+                Duration.ofMillis(20), Collections.singletonList(APPLICATION_NDJSON), APPLICATION_NDJSON);
+        final ExampleDTO example = new ExampleDTO(1, "name1");
+        final Flux<ExampleDTO> stalled = Flux.just(example).concatWith(Flux.never());
+
+        StepVerifier.create(lingerEncoder.encode(stalled, bufferFactory, EXAMPLE_TYPE, APPLICATION_NDJSON, null))
+                .assertNext(buffer -> assertThat(join(Collections.singletonList(buffer)))
+                        .isEqualTo("{\"id\":1,\"name\":\"name1\"}\n"))
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testJsonViewHint() {
+        final Map<String, Object> hints = Collections.singletonMap(Jackson2CodecSupport.JSON_VIEW_HINT,
+                Views.Public.class);
+        final ResolvableType type = ResolvableType.forClass(ViewBean.class);
+
+        final List<DataBuffer> buffers = encoder.encode(Flux.just(new ViewBean()), bufferFactory, type,
+                APPLICATION_NDJSON, hints).collectList().block();
+        assertThat(join(buffers)).isEqualTo("{\"visible\":\"v\"}\n");
+
+        final DataBuffer single = encoder.encodeValue(new ViewBean(), bufferFactory, type,
+                MediaType.APPLICATION_JSON, hints);
+        assertThat(join(Collections.singletonList(single))).isEqualTo("{\"visible\":\"v\"}");
+    }
+
+    @Test
+    void testReleaseOnCancel() {
+        final Flux<DataBuffer> encoded = encoder.encode(Flux.fromIterable(examples(10000)), bufferFactory,
+                EXAMPLE_TYPE, APPLICATION_NDJSON, null);
+
+        StepVerifier.create(encoded.take(2))
+                .consumeNextWith(DataBufferUtils::release)
+                .consumeNextWith(DataBufferUtils::release)
+                .verifyComplete();
+    }
+
+    /**
+     * buffer 比 jackson 内部缓冲 (8000 字节) 大时, 写了一半的 buffer 已经是池化的了, 取消时要释放
+     */
+    @Test
+    void testReleasePartialBufferOnCancel() {
+        final BatchingJackson2Encoder largeBufferEncoder = new BatchingJackson2Encoder(objectMapper, 64 * 1024,
+                Collections.singletonList(APPLICATION_NDJSON), APPLICATION_NDJSON);
+        final Flux<ExampleDTO> stalled = Flux.fromIterable(examples(1000))
+                .concatWith(Flux.never());
+
+        // 元素同步写完后停在 never 上, 写了一半的 buffer 还没发出去
+        largeBufferEncoder.encode(stalled, bufferFactory, EXAMPLE_TYPE, APPLICATION_NDJSON, null)
+                .subscribe(DataBufferUtils::release)
+                .dispose();
+
+        assertThat(bufferFactory.allocated).isNotEmpty();
+    }
+
+    @Test
+    void testReleaseOnError() {
+        final Flux<ExampleDTO> failing = Flux.fromIterable(examples(100))
+                .concatWith(Flux.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(encoder.encode(failing, bufferFactory, EXAMPLE_TYPE, APPLICATION_NDJSON, null))
+                .thenConsumeWhile(buffer -> {
+                    DataBufferUtils.release(buffer);
+                    return true;
+                })
+                .verifyErrorMessage("boom");
+    }
+
+    private interface Views {
+
+        interface Public {
+        }
+
+        interface Internal {
+        }
+    }
+
+    @Getter
+    private static class ViewBean {
+
+        @JsonView(Views.Public.class)
+        private final String visible = "v";
+
+        @JsonView(Views.Internal.class)
+        private final String hidden = "h";
+    }
+
+    private static List<ExampleDTO> examples(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new ExampleDTO(i, "name" + i))
+                .collect(Collectors.toList());
+    }
+
+    private static String join(List<DataBuffer> buffers) {
+        return buffers.stream()
+                .map(buffer -> {
+                    final String text = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return text;
+                })
+                .collect(Collectors.joining());
+    }
+
+    /**
+     * 记下分配过的池化 buffer, 用来检查有没有泄漏
+     */
+    private static class TrackingBufferFactory extends NettyDataBufferFactory {
+
+        private final List<NettyDataBuffer> allocated = Collections.synchronizedList(new ArrayList<>());
+
+        TrackingBufferFactory() {
+            super(PooledByteBufAllocator.DEFAULT);
+        }
+
+        @Override
+        public NettyDataBuffer allocateBuffer() {
+            return track(super.allocateBuffer());
+        }
+
+        @Override
+        public NettyDataBuffer allocateBuffer(int initialCapacity) {
+            return track(super.allocateBuffer(initialCapacity));
+        }
+
+        private NettyDataBuffer track(NettyDataBuffer buffer) {
+            allocated.add(buffer);
+            return buffer;
+        }
+
+        void assertAllReleased() {
+            assertThat(allocated)
+                    .allSatisfy(buffer -> assertThat(buffer.getNativeBuffer().refCnt()).isZero());
+        }
+    }
+
+}
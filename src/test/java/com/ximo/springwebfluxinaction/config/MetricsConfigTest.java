@@ -0,0 +1,78 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.metrics.ReactorMetricsProperties;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MetricsConfigTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private HmacTokenCodec hmacTokenCodec;
+
+    @Test
+    void testPrometheusEndpoint() {
+        final String token = hmacTokenCodec.issue("test", Collections.singletonList("USER"), Duration.ofMinutes(5));
+        webTestClient.get().uri("/flux/example")
+                .headers(headers -> headers.setBearerAuth(token))
+                .exchange().expectStatus().isOk();
+        // 不碰 /example, 它的缓存统计在共享的 context 里被 CachingHandlerFilterTest 断言
+        webTestClient.get().uri("/cache/stats").exchange().expectStatus().isOk();
+
+        final String body = webTestClient.get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(body)
+                .contains("http_server_requests_seconds_bucket")
+                .contains("uri=\"/flux/example\"")
+                .contains("uri=\"/cache/stats\"")
+                .contains("http_server_requests_active_seconds_active_count")
+                .contains("netty_eventloop_pending_tasks")
+                .contains("webflux_batch_pending")
+                .contains("reactor_netty_http_server_data_sent_time");
+    }
+
+    @Test
+    void testUriTag() {
+        assertThat(MetricsConfig.uriTag("/flux/example?count=10")).isEqualTo("/flux/example");
+        assertThat(MetricsConfig.uriTag("/flux/example/1/2")).isEqualTo("/flux/example");
+        assertThat(MetricsConfig.uriTag("/example")).isEqualTo("/example");
+        assertThat(MetricsConfig.uriTag("/")).isEqualTo("/");
+    }
+
+    @Test
+    void testUriTagLimit() {
+        final ReactorMetricsProperties properties = new ReactorMetricsProperties();
+        properties.setMaxNettyServerUris(2);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(new MetricsConfig().nettyServerUriTagFilter(properties));
+
+        for (String uri : new String[]{"/flux/example", "/example", "/wp-admin/setup", "/.env"}) {
+            registry.timer("reactor.netty.http.server.data.sent.time", "uri", uri).record(Duration.ofMillis(1));
+        }
+
+        assertThat(registry.find("reactor.netty.http.server.data.sent.time").timers()).hasSize(2);
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.ximo.springwebfluxinaction.config;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.domain.SaveResultDTO;
+import com.ximo.springwebfluxinaction.repository.ExampleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_NDJSON;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_STREAM_SMILE;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WebfluxRouterFunctionConfigTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void testSaveSingle() {
+        webTestClient.post()
+                .uri("/example")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\":1,\"name\":\"name1\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(SaveResultDTO.class).isEqualTo(new SaveResultDTO(1L));
+    }
+
+    @Test
+    void testSaveNdjson() {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            body.append("{\"id\":").append(i).append(",\"name\":\"name").append(i).append("\"}\n");
+        }
+
+        webTestClient.post()
+                .uri("/example")
+                .contentType(APPLICATION_NDJSON)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(SaveResultDTO.class).isEqualTo(new SaveResultDTO(1200L));
+    }
+
+    @Test
+    void testSaveSmileStream() {
+        final Flux<ExampleDTO> examples = Flux.range(2000, 300)
+                .map(i -> new ExampleDTO(i, "name" + i));
+
+        webTestClient.post()
+                .uri("/example")
+                .contentType(APPLICATION_STREAM_SMILE)
+                .body(examples, ExampleDTO.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(SaveResultDTO.class).isEqualTo(new SaveResultDTO(300L));
+    }
+
+    /**
+     * 同时提交的两个请求会进同一批, 写不进去的那个 400, 另一个不受影响
+     */
+    @Test
+    void testInvalidItemRejectedAlone() {
+        final String longName = String.join("", Collections.nCopies(ExampleRepository.NAME_MAX_LENGTH + 1, "x"));
+        final List<String> invalidBodies = Arrays.asList("{\"name\":\"no id\"}",
+                "{\"id\":3001,\"name\":\"" + longName + "\"}");
+        for (String invalid : invalidBodies) {
+            final CompletableFuture<Void> valid = CompletableFuture.runAsync(() -> webTestClient.post()
+                    .uri("/example")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("{\"id\":3000,\"name\":\"valid\"}")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(SaveResultDTO.class).isEqualTo(new SaveResultDTO(1L)));
+            final CompletableFuture<Void> rejected = CompletableFuture.runAsync(() -> webTestClient.post()
+                    .uri("/example")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(invalid)
+                    .exchange()
+                    .expectStatus().isBadRequest());
+            CompletableFuture.allOf(valid, rejected).join();
+        }
+    }
+
+    @Test
+    void testDefaultsToJson() {
+        webTestClient.get()
+                .uri("/cache/stats")
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+        webTestClient.get()
+                .uri("/client/pool")
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void testBlockingRoute() {
+        webTestClient.get()
+                .uri("/blocking/example")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("hello webflux router function");
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.ximo.springwebfluxinaction.controller;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.domain.SaveResultDTO;
+import com.ximo.springwebfluxinaction.rsocket.BearerTokenSocketAcceptorInterceptor;
+import com.ximo.springwebfluxinaction.rsocket.BroadcastHub;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.exceptions.RejectedSetupException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "webflux.rsocket.max-streams-per-connection=2")
+class ExampleStreamControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RSocketRequester.Builder requesterBuilder;
+
+    @Autowired
+    private HmacTokenCodec hmacTokenCodec;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private BroadcastHub<ExampleDTO> exampleHub;
+
+    private final List<RSocketRequester> requesters = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        requesters.forEach(requester -> requester.rsocket().dispose());
+    }
+
+    /**
+     * 订阅之后通过 http 提交的数据会推送过来
+     */
+    @Test
+    void testLiveStream() {
+        final RSocketRequester requester = connect(token());
+        final long subscribers = exampleHub.getSubscribers();
+        StepVerifier.create(requester.route("examples.live").retrieveFlux(ExampleDTO.class))
+                .then(() -> awaitSubscribers(subscribers + 1))
+                .then(() -> webTestClient.post()
+                        .uri("/example")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue("[{\"id\":7001,\"name\":\"live1\"},{\"id\":7002,\"name\":\"live2\"}]")
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(SaveResultDTO.class).isEqualTo(new SaveResultDTO(2L)))
+                .expectNext(new ExampleDTO(7001, "live1"), new ExampleDTO(7002, "live2"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    /**
+     * 发出去的数据写入后, 和其他新数据一起从同一个 channel 收回来
+     */
+    @Test
+    void testChannel() {
+        final RSocketRequester requester = connect(token());
+        final Flux<ExampleDTO> outbound = Flux.range(8000, 3).map(i -> new ExampleDTO(i, "channel" + i));
+        StepVerifier.create(requester.route("examples.channel").data(outbound).retrieveFlux(ExampleDTO.class))
+                .expectNext(new ExampleDTO(8000, "channel8000"), new ExampleDTO(8001, "channel8001"),
+                        new ExampleDTO(8002, "channel8002"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+
+        StepVerifier.create(requester.route("examples.stored").retrieveFlux(ExampleDTO.class)
+                .filter(example -> example.getId() >= 8000 && example.getId() < 8003))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void testStreamsPerConnectionLimited() {
+        final RSocketRequester requester = connect(token());
+        final long subscribers = exampleHub.getSubscribers();
+        final Flux<ExampleDTO> live = requester.route("examples.live").retrieveFlux(ExampleDTO.class);
+        StepVerifier.create(Flux.merge(live, live))
+                .then(() -> awaitSubscribers(subscribers + 2))
+                .then(() -> StepVerifier.create(live)
+                        .expectError(RejectedException.class)
+                        .verify(Duration.ofSeconds(5)))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+
+        // 另一个连接不受影响
+        StepVerifier.create(connect(token()).route("examples.live").retrieveFlux(ExampleDTO.class))
+                .then(() -> awaitSubscribers(subscribers + 1))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    /**
+     * 服务端回 REJECTED_SETUP 后关闭连接, 客户端先看到哪个不确定, 这里只要求请求失败且连接被关掉
+     */
+    @Test
+    void testSetupRequiresToken() {
+        assertSetupRejected(connect("not-a-token"));
+    }
+
+    /**
+     * 和 http 的受保护接口一样要 USER 权限
+     */
+    @Test
+    void testSetupRequiresUserAuthority() {
+        assertSetupRejected(connect(hmacTokenCodec.issue("test", Collections.singletonList("GUEST"),
+                Duration.ofMinutes(5))));
+    }
+
+    private void assertSetupRejected(RSocketRequester requester) {
+        StepVerifier.create(requester.route("examples.stored").retrieveFlux(ExampleDTO.class))
+                .expectErrorSatisfies(e -> assertThat(e).satisfiesAnyOf(
+                        error -> assertThat(error).isInstanceOf(RejectedSetupException.class),
+                        error -> assertThat(error).hasMessage("closed connection")))
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(requester.rsocket().onClose().onErrorResume(e -> Mono.empty()))
+                .verifyComplete();
+        assertThat(requester.rsocket().isDisposed()).isTrue();
+    }
+
+    private String token() {
+        return hmacTokenCodec.issue("test", Collections.singletonList("USER"), Duration.ofMinutes(5));
+    }
+
+    private RSocketRequester connect(String token) {
+        final RSocketRequester requester = requesterBuilder
+                .setupMetadata(token, BearerTokenSocketAcceptorInterceptor.BEARER_MIME_TYPE)
+                .connectWebSocket(URI.create("ws://localhost:" + port + "/rsocket"))
+                .block(Duration.ofSeconds(5));
+        requesters.add(requester);
+        return requester;
+    }
+
+    private void awaitSubscribers(long expected) {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (exampleHub.getSubscribers() < expected && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertThat(exampleHub.getSubscribers()).isEqualTo(expected);
+    }
+
+}
@@ -0,0 +1,366 @@
+package com.ximo.springwebfluxinaction.controller;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.paging.PageCursor;
+import com.ximo.springwebfluxinaction.resilience.CircuitBreakerOpenException;
+import com.ximo.springwebfluxinaction.resilience.Deadline;
+import com.ximo.springwebfluxinaction.resilience.DeadlineExceededException;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_NDJSON;
+import static com.ximo.springwebfluxinaction.codec.StreamingMediaTypes.APPLICATION_STREAM_SMILE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FluxControllerTest {
+
+    @Autowired
+    private WebTestClient anonymousClient;
+
+    @Autowired
+    private HmacTokenCodec hmacTokenCodec;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        final String token = hmacTokenCodec.issue("test", Collections.singletonList("USER"), Duration.ofMinutes(5));
+        webTestClient = anonymousClient.mutate()
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+
+    @Test
+    void testExampleJson() {
+        webTestClient.get()
+                .uri("/flux/example")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ExampleDTO.class)
+                .hasSize(10)
+                .contains(new ExampleDTO(9, "name9"));
+    }
+
+    @Test
+    void testExampleNdjson() {
+        final String body = webTestClient.get()
+                .uri("/flux/example?count=1000")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        StepVerifier.create(Flux.fromArray(body.split("\n")))
+                .expectNext("{\"id\":0,\"name\":\"name0\"}")
+                .expectNextCount(999)
+                .verifyComplete();
+    }
+
+    @Test
+    void testExampleEventStreamTake() {
+        final Flux<ExampleDTO> body = webTestClient.get()
+                .uri("/flux/example?count=5000000")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(ExampleDTO.class)
+                .getResponseBody();
+
+        // 只取前几个就取消, 服务端不会把五百万个都生成出来
+        StepVerifier.create(body.take(3))
+                .expectNext(new ExampleDTO(0, "name0"), new ExampleDTO(1, "name1"), new ExampleDTO(2, "name2"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testExampleSmileStream() {
+        final Flux<ExampleDTO> body = webTestClient.get()
+                .uri("/flux/example?count=1000")
+                .accept(APPLICATION_STREAM_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_STREAM_SMILE)
+                .returnResult(ExampleDTO.class)
+                .getResponseBody();
+
+        StepVerifier.create(body)
+                .expectNext(new ExampleDTO(0, "name0"))
+                .expectNextCount(998)
+                .expectNext(new ExampleDTO(999, "name999"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testExampleCountOutOfRange() {
+        webTestClient.get()
+                .uri("/flux/example?count=-1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    /**
+     * 阻塞写法的版本和响应式的输出一样
+     */
+    @Test
+    void testBlockingExample() {
+        final Flux<ExampleDTO> body = webTestClient.get()
+                .uri("/flux/blocking/example?count=1000")
+                .accept(APPLICATION_STREAM_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_STREAM_SMILE)
+                .returnResult(ExampleDTO.class)
+                .getResponseBody();
+
+        StepVerifier.create(body)
+                .expectNext(new ExampleDTO(0, "name0"))
+                .expectNextCount(998)
+                .expectNext(new ExampleDTO(999, "name999"))
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri("/flux/blocking/example?count=-1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testDigestExample() {
+        final Flux<ExampleDTO> body = webTestClient.get()
+                .uri("/flux/example/digest?count=2000")
+                .accept(APPLICATION_STREAM_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(ExampleDTO.class)
+                .getResponseBody();
+
+        // sha-256("name0")
+        StepVerifier.create(body)
+                .expectNext(new ExampleDTO(0, "3817c89e29f4d2da3df5adc81d943f76920d1ba1af2f79d3a8a1f18bae5d608a"))
+                .expectNextCount(1998)
+                .assertNext(example -> assertEquals(1999, example.getId()))
+                .verifyComplete();
+    }
+
+    /**
+     * 按游标翻到最后一页, 最后一页没有下一页的游标
+     */
+    @Test
+    void testExamplePaging() {
+        final List<Integer> ids = new ArrayList<>();
+        String uri = "/flux/example?count=25&limit=10&after=-1";
+        int pages = 0;
+        while (uri != null) {
+            final EntityExchangeResult<List<ExampleDTO>> page = webTestClient.get()
+                    .uri(uri)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(ExampleDTO.class)
+                    .returnResult();
+            page.getResponseBody().forEach(example -> ids.add(example.getId()));
+            final String cursor = page.getResponseHeaders().getFirst(PageCursor.HEADER);
+            if (cursor != null) {
+                assertEquals("</flux/example?cursor=" + cursor + ">; rel=\"next\"",
+                        page.getResponseHeaders().getFirst(HttpHeaders.LINK));
+            }
+            uri = cursor == null ? null : "/flux/example?cursor=" + cursor;
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(IntStream.range(0, 25).boxed().collect(Collectors.toList()), ids);
+    }
+
+    /**
+     * 深页直接定位, 每页的字段选择带在游标里
+     */
+    @Test
+    void testExamplePageProjection() {
+        final EntityExchangeResult<String> page = webTestClient.get()
+                .uri("/flux/example?count=10000000&after=9999997&limit=5&fields=id")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult();
+        assertEquals("{\"id\":9999998}\n{\"id\":9999999}\n", page.getResponseBody());
+        assertEquals(null, page.getResponseHeaders().getFirst(PageCursor.HEADER));
+
+        final String cursor = webTestClient.get()
+                .uri("/flux/example?count=100&limit=1&fields=name")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"name\":\"name0\"}\n")
+                .returnResult()
+                .getResponseHeaders().getFirst(PageCursor.HEADER);
+        webTestClient.get()
+                .uri("/flux/example?cursor={cursor}", cursor)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"name\":\"name1\"}\n");
+
+        webTestClient.get()
+                .uri("/flux/example?limit=10001")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get()
+                .uri("/flux/example?fields=id,password")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get()
+                .uri("/flux/example?cursor=garbage")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    /**
+     * POST /example 提交后写进堆外存储
+     */
+    @Test
+    void testStore() {
+        webTestClient.post()
+                .uri("/example")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"id\":9000001,\"name\":\"store1\"},{\"id\":9000002,\"name\":\"store2\"},"
+                        + "{\"id\":9000003,\"name\":\"store3\"}]")
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri("/flux/store?from=9000001&to=9000002")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ExampleDTO.class)
+                .isEqualTo(Arrays.asList(new ExampleDTO(9000001, "store1"), new ExampleDTO(9000002, "store2")));
+        webTestClient.get()
+                .uri("/flux/store/9000003")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ExampleDTO.class).isEqualTo(new ExampleDTO(9000003, "store3"));
+        webTestClient.get()
+                .uri("/flux/store/9000004")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    /**
+     * 数据库和堆外存储的分页: id 不连续, 翻页用上一页响应头里的游标
+     */
+    @Test
+    void testStoredPaging() {
+        webTestClient.post()
+                .uri("/example")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"id\":9100001,\"name\":\"page1\"},{\"id\":9100003,\"name\":\"page3\"},"
+                        + "{\"id\":9100005,\"name\":\"page5\"},{\"id\":9100007,\"name\":\"page7\"}]")
+                .exchange()
+                .expectStatus().isOk();
+
+        for (String path : Arrays.asList("/flux/stored", "/flux/store")) {
+            final EntityExchangeResult<List<ExampleDTO>> first = webTestClient.get()
+                    .uri(path + "?after=9100000&limit=2")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(ExampleDTO.class)
+                    .isEqualTo(Arrays.asList(new ExampleDTO(9100001, "page1"), new ExampleDTO(9100003, "page3")))
+                    .returnResult();
+            final String cursor = first.getResponseHeaders().getFirst(PageCursor.HEADER);
+            assertEquals("<" + path + "?cursor=" + cursor + ">; rel=\"next\"",
+                    first.getResponseHeaders().getFirst(HttpHeaders.LINK));
+            webTestClient.get()
+                    .uri(path + "?cursor={cursor}", cursor)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(ExampleDTO.class)
+                    .isEqualTo(Arrays.asList(new ExampleDTO(9100005, "page5"), new ExampleDTO(9100007, "page7")));
+
+            webTestClient.get()
+                    .uri(path + "?limit=10001")
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        }
+    }
+
+    @Test
+    void testUnauthorized() {
+        anonymousClient.get()
+                .uri("/flux/example")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        anonymousClient.get()
+                .uri("/flux/example")
+                .headers(headers -> headers.setBearerAuth("not-a-token"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testForbiddenWithoutAuthority() {
+        final String token = hmacTokenCodec.issue("test", Collections.emptyList(), Duration.ofMinutes(5));
+        anonymousClient.get()
+                .uri("/flux/example")
+                .headers(headers -> headers.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void testUpstreamErrorStatus() {
+        StepVerifier.create(FluxController.upstreamErrors(Flux.error(new CircuitBreakerOpenException("upstream:80"))))
+                .expectErrorSatisfies(e -> assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                        ((ResponseStatusException) e).getStatus()))
+                .verify();
+        StepVerifier.create(FluxController.upstreamErrors(Flux.error(
+                new DeadlineExceededException(URI.create("http://upstream/flux/example")))))
+                .expectErrorSatisfies(e -> assertEquals(HttpStatus.GATEWAY_TIMEOUT,
+                        ((ResponseStatusException) e).getStatus()))
+                .verify();
+    }
+
+    @Test
+    void testExpiredDeadline() {
+        // 调用方已经没有剩余时间了, 不再处理
+        webTestClient.get()
+                .uri("/flux/webclient")
+                .header(Deadline.HEADER, "0")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+}
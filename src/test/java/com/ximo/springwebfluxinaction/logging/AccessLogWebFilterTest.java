@@ -0,0 +1,66 @@
+package com.ximo.springwebfluxinaction.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class AccessLogWebFilterTest {
+
+    private final Logger accessLog = (Logger) LoggerFactory.getLogger("webflux.access");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        accessLog.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLog.detachAppender(appender);
+    }
+
+    /**
+     * 采样率为 0 时只有服务端错误能输出; 带状态码的异常按它的状态码算, 不当成 500
+     */
+    @Test
+    void testStatusFromResponseStatusException() {
+        final AccessLogWebFilter filter = new AccessLogWebFilter(new LogSampler(0.0, 0));
+
+        StepVerifier.create(filter.filter(exchange(), exchange -> Mono.error(
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "example 1 not found"))))
+                .verifyError(ResponseStatusException.class);
+        assertThat(appender.list).isEmpty();
+
+        StepVerifier.create(filter.filter(exchange(), exchange -> Mono.error(
+                new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "saturated"))))
+                .verifyError(ResponseStatusException.class);
+        StepVerifier.create(filter.filter(exchange(), exchange -> Mono.error(new IllegalStateException("boom"))))
+                .verifyError(IllegalStateException.class);
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("status=503");
+        assertThat(appender.list.get(1).getFormattedMessage()).contains("status=500");
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/flux/store/1"));
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.ximo.springwebfluxinaction.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class LogSamplerTest {
+
+    @Test
+    void testRateLimitPerRouteAndSecond() {
+        final AtomicLong now = new AtomicLong(10_000);
+        final LogSampler sampler = new LogSampler(1.0, 3, now::get);
+
+        assertThat(count(sampler, "/flux/example", 10)).isEqualTo(3);
+        // 其他路由不受影响
+        assertThat(count(sampler, "/example", 10)).isEqualTo(3);
+
+        now.addAndGet(999);
+        assertThat(sampler.sample("/flux/example")).isFalse();
+        now.addAndGet(1);
+        assertThat(count(sampler, "/flux/example", 10)).isEqualTo(3);
+    }
+
+    @Test
+    void testSampleRate() {
+        final LogSampler never = new LogSampler(0.0, 0);
+        assertThat(count(never, "/flux/example", 1000)).isZero();
+        // 错误日志不采样
+        assertThat(never.acquire("/flux/example")).isTrue();
+
+        final LogSampler half = new LogSampler(0.5, 0);
+        assertThat(count(half, "/flux/example", 10000)).isBetween(4000L, 6000L);
+    }
+
+    private static long count(LogSampler sampler, String route, int times) {
+        return IntStream.range(0, times)
+                .filter(i -> sampler.sample(route))
+                .count();
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.ximo.springwebfluxinaction.paging;
+
+import com.ximo.springwebfluxinaction.domain.ExampleProjection;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class PageCursorTest {
+
+    @Test
+    void testRoundTrip() {
+        final PageCursor cursor = new PageCursor(Integer.MIN_VALUE, 500, 1_000_000, ExampleProjection.parse("name"));
+        final String encoded = cursor.encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(PageCursor.decode(encoded)).isEqualTo(cursor);
+        assertThat(PageCursor.decode(encoded).getProjection().toString()).isEqualTo("name");
+    }
+
+    @Test
+    void testMalformed() {
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode("AQ")).isInstanceOf(IllegalArgumentException.class);
+        // 格式对但 limit 为 0
+        assertThatThrownBy(() -> PageCursor.decode("AQAAAAEAAAAAAAAAAQM")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.ximo.springwebfluxinaction.repository;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class ExampleRepositoryTest {
+
+    private ConnectionPool connectionPool;
+
+    private Scheduler scheduler;
+
+    private ExampleRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(
+                ConnectionFactories.get("r2dbc:h2:mem:///repository-test?options=DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1"))
+                .maxSize(2)
+                .build());
+        scheduler = Schedulers.newBoundedElastic(2, Integer.MAX_VALUE, "r2dbc-test");
+        repository = new ExampleRepository(connectionPool, 16, scheduler);
+        repository.createSchema().block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionPool.create()
+                .flatMap(connection -> Mono.from(connection.createStatement("DROP TABLE example").execute())
+                        .then(Mono.from(connection.close())))
+                .block();
+        connectionPool.dispose();
+        scheduler.dispose();
+    }
+
+    @Test
+    void testSaveAllAndFind() {
+        final List<ExampleDTO> examples = IntStream.range(0, 1000)
+                .mapToObj(i -> new ExampleDTO(i, "name" + i))
+                .collect(Collectors.toList());
+
+        StepVerifier.create(repository.saveAll(examples).then(repository.count()))
+                .expectNext(1000L)
+                .verifyComplete();
+
+        // 同一个 id 再写一次是覆盖
+        StepVerifier.create(repository.saveAll(Arrays.asList(new ExampleDTO(1, "one"), new ExampleDTO(2, null)))
+                .then(repository.findById(1)))
+                .expectNext(new ExampleDTO(1, "one"))
+                .verifyComplete();
+
+        StepVerifier.create(repository.findAfter(10, 3))
+                .expectNext(new ExampleDTO(11, "name11"), new ExampleDTO(12, "name12"), new ExampleDTO(13, "name13"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindAllOffEventLoop() {
+        repository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> new ExampleDTO(i, "name" + i))
+                .collect(Collectors.toList()))
+                .block();
+
+        // 只 request 一部分, 读数据库的线程都是 offload 线程池里的
+        StepVerifier.create(repository.findAll()
+                .doOnNext(example -> assertThat(Thread.currentThread().getName()).startsWith("r2dbc-test")), 5)
+                .expectNextCount(5)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(95)
+                .verifyComplete();
+    }
+
+}
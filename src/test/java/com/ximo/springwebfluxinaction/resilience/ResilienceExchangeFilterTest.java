@@ -0,0 +1,162 @@
+package com.ximo.springwebfluxinaction.resilience;
+
+import com.ximo.springwebfluxinaction.client.WebClientProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class ResilienceExchangeFilterTest {
+
+    private static final URI URL = URI.create("http://upstream:8080/flux/example");
+
+    private final WebClientProperties.Resilience properties = new WebClientProperties.Resilience();
+
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    ResilienceExchangeFilterTest() {
+        properties.getRetry().setMinBackoff(Duration.ofMillis(1));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(5));
+    }
+
+    @Test
+    void testRetryIdempotentThenSucceed() {
+        final ExchangeFunction upstream = exchange(attempt -> attempt < 3
+                ? Mono.just(response(HttpStatus.SERVICE_UNAVAILABLE)) : Mono.just(response(HttpStatus.OK)));
+
+        StepVerifier.create(new ResilienceExchangeFilter(properties).filter(request(HttpMethod.GET), upstream))
+                .assertNext(response -> assertThat(response.statusCode()).isEqualTo(HttpStatus.OK))
+                .verifyComplete();
+        assertThat(attempts).hasValue(3);
+        // 每次都带上剩余时间
+        assertThat(requests).allSatisfy(request -> assertThat(request.headers().getFirst(Deadline.HEADER))
+                .isNotNull());
+    }
+
+    @Test
+    void testNoRetryForPost() {
+        final ExchangeFunction upstream = exchange(attempt -> Mono.just(response(HttpStatus.SERVICE_UNAVAILABLE)));
+
+        StepVerifier.create(new ResilienceExchangeFilter(properties).filter(request(HttpMethod.POST), upstream))
+                .assertNext(response -> assertThat(response.statusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE))
+                .verifyComplete();
+        assertThat(attempts).hasValue(1);
+    }
+
+    /**
+     * 上游限流时带了 Retry-After, 立刻重试只会再被拒绝一次
+     */
+    @Test
+    void testNoRetryForRetryAfter() {
+        final ExchangeFunction upstream = exchange(attempt -> Mono.just(ClientResponse
+                .create(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build()));
+
+        StepVerifier.create(new ResilienceExchangeFilter(properties).filter(request(HttpMethod.GET), upstream))
+                .assertNext(response -> assertThat(response.statusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE))
+                .verifyComplete();
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void testRetriesExhausted() {
+        final ExchangeFunction upstream = exchange(attempt -> Mono.error(new IOException("connection reset")));
+
+        StepVerifier.create(new ResilienceExchangeFilter(properties).filter(request(HttpMethod.GET), upstream))
+                .expectError(IOException.class)
+                .verify();
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void testCircuitBreakerOpens() {
+        properties.getRetry().setMaxRetries(0);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        final ResilienceExchangeFilter filter = new ResilienceExchangeFilter(properties);
+        final ExchangeFunction upstream = exchange(attempt -> Mono.error(new IOException("connection refused")));
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(filter.filter(request(HttpMethod.GET), upstream))
+                    .expectError(IOException.class)
+                    .verify();
+        }
+        assertThat(filter.getState("upstream:8080")).isEqualTo(CircuitBreaker.State.OPEN);
+
+        StepVerifier.create(filter.filter(request(HttpMethod.GET), upstream))
+                .expectError(CircuitBreakerOpenException.class)
+                .verify();
+        assertThat(attempts).hasValue(4);
+    }
+
+    @Test
+    void testDeadlineFromContext() {
+        final ExchangeFunction upstream = exchange(attempt -> Mono.never());
+
+        StepVerifier.create(new ResilienceExchangeFilter(properties).filter(request(HttpMethod.GET), upstream)
+                .subscriberContext(Context.of(Deadline.class, Deadline.after(Duration.ofMillis(100)))))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(2));
+        assertThat(Long.parseLong(requests.get(0).headers().getFirst(Deadline.HEADER))).isBetween(1L, 100L);
+    }
+
+    @Test
+    void testHedgeTakesFirstResponse() throws InterruptedException {
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setMinSamples(1);
+        final ResilienceExchangeFilter filter = new ResilienceExchangeFilter(properties);
+        // 先积累耗时样本, 分位数每 100ms 才重新计算
+        final ExchangeFunction fast = exchange(attempt -> Mono.just(response(HttpStatus.OK)));
+        filter.filter(request(HttpMethod.GET), fast).block();
+        Thread.sleep(150);
+        filter.filter(request(HttpMethod.GET), fast).block();
+
+        // 第一次一直不响应, 对冲的第二次马上返回
+        attempts.set(0);
+        final ExchangeFunction slowThenFast = exchange(attempt -> attempt == 1
+                ? Mono.never() : Mono.just(response(HttpStatus.OK)));
+        StepVerifier.create(filter.filter(request(HttpMethod.GET), slowThenFast))
+                .assertNext(response -> assertThat(response.statusCode()).isEqualTo(HttpStatus.OK))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertThat(attempts).hasValue(2);
+    }
+
+    private ExchangeFunction exchange(IntFunction<Mono<ClientResponse>> responses) {
+        return request -> Mono.defer(() -> {
+            requests.add(request);
+            return responses.apply(attempts.incrementAndGet());
+        });
+    }
+
+    private static ClientRequest request(HttpMethod method) {
+        return ClientRequest.create(method, URL).build();
+    }
+
+    private static ClientResponse response(HttpStatus status) {
+        return ClientResponse.create(status).build();
+    }
+
+}
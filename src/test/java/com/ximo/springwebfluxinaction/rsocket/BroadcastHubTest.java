@@ -0,0 +1,104 @@
+package com.ximo.springwebfluxinaction.rsocket;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class BroadcastHubTest {
+
+    @Test
+    void testFanOutToManySubscribers() {
+        final BroadcastHub<Integer> hub = new BroadcastHub<>("test", 16, SlowConsumerPolicy.DROP_OLDEST);
+        final AtomicLong received = new AtomicLong();
+        final List<Disposable> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            subscriptions.add(hub.subscribe().subscribe(element -> received.incrementAndGet()));
+        }
+        assertThat(hub.getSubscribers()).isEqualTo(5000);
+
+        for (int i = 0; i < 10; i++) {
+            hub.publish(i);
+        }
+        assertThat(received).hasValue(50_000);
+        assertThat(hub.getDropped()).isZero();
+
+        subscriptions.forEach(Disposable::dispose);
+        assertThat(hub.getSubscribers()).isZero();
+        // 没有订阅者时直接丢弃
+        hub.publish(10);
+        assertThat(received).hasValue(50_000);
+    }
+
+    /**
+     * 慢的订阅者只影响自己
+     */
+    @Test
+    void testDropOldest() {
+        final BroadcastHub<Integer> hub = new BroadcastHub<>("test", 4, SlowConsumerPolicy.DROP_OLDEST);
+        StepVerifier.create(hub.subscribe(), 0)
+                .then(() -> StepVerifier.create(hub.subscribe())
+                        .then(() -> {
+                            for (int i = 0; i < 10; i++) {
+                                hub.publish(i);
+                            }
+                        })
+                        .expectNext(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)
+                        .thenCancel()
+                        .verify(Duration.ofSeconds(1)))
+                .thenRequest(4)
+                .expectNext(6, 7, 8, 9)
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+        assertThat(hub.getDropped()).isEqualTo(6);
+    }
+
+    @Test
+    void testDropLatest() {
+        final BroadcastHub<Integer> hub = new BroadcastHub<>("test", 4, SlowConsumerPolicy.DROP_LATEST);
+        StepVerifier.create(hub.subscribe(), 0)
+                .then(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        hub.publish(i);
+                    }
+                })
+                .thenRequest(10)
+                .expectNext(0, 1, 2, 3)
+                .then(() -> hub.publish(10))
+                .expectNext(10)
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testDisconnectAndDispose() {
+        final BroadcastHub<Integer> hub = new BroadcastHub<>("test", 4, SlowConsumerPolicy.DISCONNECT);
+        StepVerifier.create(hub.subscribe(), 0)
+                .then(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        hub.publish(i);
+                    }
+                })
+                .thenRequest(10)
+                .expectNext(0, 1, 2, 3)
+                .expectErrorMessage("subscriber too slow, more than 4 elements pending")
+                .verify(Duration.ofSeconds(1));
+
+        StepVerifier.create(hub.subscribe())
+                .then(() -> hub.publish(1))
+                .expectNext(1)
+                .then(hub::dispose)
+                .verifyComplete();
+    }
+
+}
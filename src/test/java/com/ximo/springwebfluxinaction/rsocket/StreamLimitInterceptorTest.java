@@ -0,0 +1,66 @@
+package com.ximo.springwebfluxinaction.rsocket;
+
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.util.ByteBufPayload;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class StreamLimitInterceptorTest {
+
+    private final RSocket rsocket = new StreamLimitInterceptor(1).apply(new AbstractRSocket() {
+
+        @Override
+        public Flux<Payload> requestStream(Payload payload) {
+            payload.release();
+            return Flux.never();
+        }
+
+        @Override
+        public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+            return Flux.from(payloads).doOnNext(Payload::release).thenMany(Flux.never());
+        }
+    });
+
+    /**
+     * 被拒绝的流, 请求的 payload 和客户端之后发来的 payload 都要释放
+     */
+    @Test
+    void testRejectedChannelReleasesPayloads() {
+        final Payload first = ByteBufPayload.create("first");
+        final Payload next = ByteBufPayload.create("next");
+        StepVerifier.create(rsocket.requestStream(ByteBufPayload.create("open")))
+                .then(() -> StepVerifier.create(rsocket.requestChannel(Flux.just(first, next)))
+                        .expectError(RejectedException.class)
+                        .verify())
+                .thenCancel()
+                .verify();
+
+        assertThat(first.refCnt()).isZero();
+        assertThat(next.refCnt()).isZero();
+    }
+
+    @Test
+    void testRejectedStreamReleasesPayload() {
+        final Payload rejected = ByteBufPayload.create("rejected");
+        StepVerifier.create(rsocket.requestChannel(Flux.<Payload>never()))
+                .then(() -> StepVerifier.create(rsocket.requestStream(rejected))
+                        .expectError(RejectedException.class)
+                        .verify())
+                .thenCancel()
+                .verify();
+
+        assertThat(rejected.refCnt()).isZero();
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.ximo.springwebfluxinaction.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class SchedulerRegistryTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SchedulerRegistry registry;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        final SchedulerProperties properties = new SchedulerProperties();
+        properties.getExecutors().put("abort", executor(RejectionPolicy.ABORT));
+        properties.getExecutors().put("caller", executor(RejectionPolicy.CALLER_RUNS));
+        final SchedulerProperties.Executor virtual = executor(RejectionPolicy.ABORT);
+        virtual.setVirtualThreads(true);
+        virtual.setThreads(4);
+        virtual.setPlatformThreads(2);
+        properties.getExecutors().put("virtual", virtual);
+        registry = new SchedulerRegistry(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        registry.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        registry.destroy();
+    }
+
+    /**
+     * 测试里装了 BlockHound, parallel 线程上阻塞直接失败, 放到 registry 的线程池里就可以
+     */
+    @Test
+    void testBlockingOnlyAllowedOnRegistryScheduler() {
+        StepVerifier.create(sleep().subscribeOn(Schedulers.parallel()))
+                .expectError(BlockingOperationError.class)
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(sleep().subscribeOn(registry.get("abort")))
+                .expectNext("slept")
+                .verifyComplete();
+    }
+
+    @Test
+    void testAbortWhenSaturated() {
+        final Scheduler scheduler = registry.get("abort");
+        // 一个线程被占住, 一个任务排队, 第三个被拒绝
+        scheduler.schedule(this::awaitRelease);
+        scheduler.schedule(this::awaitRelease);
+
+        StepVerifier.create(Mono.just("value").subscribeOn(scheduler))
+                .expectError(RejectedExecutionException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, meterRegistry.get("webflux.scheduler.rejected").tag("scheduler", "abort")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("webflux.scheduler.queued").tag("scheduler", "abort")
+                .gauge().value());
+    }
+
+    @Test
+    void testCallerRunsOnlyOffNonBlockingThreads() {
+        final Scheduler scheduler = registry.get("caller");
+        scheduler.schedule(this::awaitRelease);
+        scheduler.schedule(this::awaitRelease);
+
+        // 测试的 main 线程可以阻塞, 在提交的线程上执行
+        final Thread caller = Thread.currentThread();
+        StepVerifier.create(Mono.fromCallable(Thread::currentThread).subscribeOn(scheduler))
+                .expectNext(caller)
+                .verifyComplete();
+        // 从 parallel 线程提交仍然拒绝
+        StepVerifier.create(Mono.delay(Duration.ofMillis(1))
+                .flatMap(tick -> Mono.just("value").subscribeOn(scheduler)))
+                .expectError(RejectedExecutionException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(2, meterRegistry.get("webflux.scheduler.rejected").tag("scheduler", "caller")
+                .functionCounter().count());
+    }
+
+    /**
+     * jdk 21+ 上是虚拟线程, 低版本退回平台线程, 都可以阻塞
+     */
+    @Test
+    void testVirtualThreads() {
+        StepVerifier.create(sleep().then(Mono.fromCallable(Thread::currentThread))
+                .subscribeOn(registry.get("virtual")))
+                .assertNext(thread -> {
+                    assertTrue(thread.getName().startsWith("virtual-"), thread.getName());
+                    assertEquals(VirtualThreads.isSupported(), isVirtual(thread));
+                })
+                .verifyComplete();
+    }
+
+    /**
+     * 退回平台线程时线程数按 platform-threads 封顶, 虚拟线程仍然按 threads
+     */
+    @Test
+    void testPlatformThreadsCap() {
+        final int threads = VirtualThreads.isSupported() ? 4 : 2;
+        final Scheduler scheduler = registry.get("virtual");
+        // 线程全部占住, 再排满队列
+        for (int i = 0; i <= threads; i++) {
+            scheduler.schedule(this::awaitRelease);
+        }
+
+        StepVerifier.create(Mono.just("value").subscribeOn(scheduler))
+                .expectError(RejectedExecutionException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(threads, meterRegistry.get("webflux.scheduler.threads").tag("scheduler", "virtual")
+                .gauge().value());
+    }
+
+    @Test
+    void testUnknownScheduler() {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> registry.get("missing"));
+        assertEquals("no scheduler configured under webflux.schedulers.executors.missing", e.getMessage());
+    }
+
+    private static Mono<String> sleep() {
+        return Mono.fromCallable(() -> {
+            Thread.sleep(10);
+            return "slept";
+        });
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static SchedulerProperties.Executor executor(RejectionPolicy policy) {
+        final SchedulerProperties.Executor executor = new SchedulerProperties.Executor();
+        executor.setThreads(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectionPolicy(policy);
+        return executor;
+    }
+
+}
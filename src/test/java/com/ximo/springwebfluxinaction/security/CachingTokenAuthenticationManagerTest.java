@@ -0,0 +1,87 @@
+package com.ximo.springwebfluxinaction.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class CachingTokenAuthenticationManagerTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final HmacTokenCodec codec = new HmacTokenCodec(SECRET, "test", Duration.ZERO, new ObjectMapper());
+
+    private final CachingTokenAuthenticationManager manager =
+            new CachingTokenAuthenticationManager(codec, 100, Duration.ofMinutes(5));
+
+    @Test
+    void testAuthenticateAndCache() {
+        final String token = codec.issue("alice", Arrays.asList("USER", "ADMIN"), Duration.ofMinutes(5));
+
+        StepVerifier.create(manager.authenticate(TokenAuthentication.unauthenticated(token)))
+                .assertNext(authentication -> {
+                    assertThat(authentication.isAuthenticated()).isTrue();
+                    assertThat(authentication.getName()).isEqualTo("alice");
+                    assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                            .containsExactly("USER", "ADMIN");
+                })
+                .verifyComplete();
+
+        final Authentication second = manager.authenticate(TokenAuthentication.unauthenticated(token)).block();
+        assertThat(second).isSameAs(manager.authenticate(TokenAuthentication.unauthenticated(token)).block());
+        assertThat(manager.stats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testRejectTamperedToken() {
+        final String token = codec.issue("alice", Collections.singletonList("USER"), Duration.ofMinutes(5));
+        final String[] parts = token.split("\\.");
+        final String forged = codec.issue("mallory", Collections.singletonList("ADMIN"), Duration.ofMinutes(5))
+                .split("\\.")[1];
+
+        assertRejected(parts[0] + "." + forged + "." + parts[2], BadCredentialsException.class);
+        // 不接受 alg=none
+        assertRejected("eyJhbGciOiJub25lIn0." + parts[1] + ".", BadCredentialsException.class);
+        assertRejected("garbage", BadCredentialsException.class);
+
+        final HmacTokenCodec otherKey = new HmacTokenCodec("fedcba9876543210fedcba9876543210"
+                .getBytes(StandardCharsets.US_ASCII), "test", Duration.ZERO, new ObjectMapper());
+        assertRejected(otherKey.issue("alice", Collections.singletonList("USER"), Duration.ofMinutes(5)),
+                BadCredentialsException.class);
+        // 失败的不缓存
+        assertThat(manager.stats().loadSuccessCount()).isZero();
+    }
+
+    @Test
+    void testRejectExpiredToken() {
+        final Clock past = Clock.fixed(Instant.now().minus(Duration.ofHours(1)), ZoneOffset.UTC);
+        final HmacTokenCodec pastCodec = new HmacTokenCodec(SECRET, "test", Duration.ZERO, new ObjectMapper(), past);
+
+        assertRejected(pastCodec.issue("alice", Collections.singletonList("USER"), Duration.ofMinutes(5)),
+                CredentialsExpiredException.class);
+    }
+
+    private void assertRejected(String token, Class<? extends Throwable> error) {
+        StepVerifier.create(manager.authenticate(TokenAuthentication.unauthenticated(token)))
+                .expectError(error)
+                .verify();
+    }
+
+}
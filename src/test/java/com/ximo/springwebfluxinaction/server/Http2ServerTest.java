@@ -0,0 +1,140 @@
+package com.ximo.springwebfluxinaction.server;
+
+import com.ximo.springwebfluxinaction.client.WebClientFactory;
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import com.ximo.springwebfluxinaction.security.ServiceTokenExchangeFilter;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.Http2SettingsFrame;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2WindowUpdateFrame;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"webflux.client.http2.enabled=true", "webflux.client.http2.max-connections=1"})
+class Http2ServerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClientFactory webClientFactory;
+
+    @Autowired
+    private ServiceTokenExchangeFilter serviceTokenExchangeFilter;
+
+    @Autowired
+    private HmacTokenCodec hmacTokenCodec;
+
+    @Autowired
+    private ConnectionLimiter connectionLimiter;
+
+    /**
+     * 并发的请求都是同一个 h2c 连接上的 stream, http/1.1 时每个并发请求一个连接
+     */
+    @Test
+    void testMultiplexedOverOneConnection() {
+        final int connections = connectionLimiter.getActiveConnections();
+        final WebClient webClient = webClientFactory.builder()
+                .baseUrl("http://localhost:" + port)
+                .filter(serviceTokenExchangeFilter)
+                .build();
+        final List<List<ExampleDTO>> responses = Flux.range(0, 32)
+                .flatMap(i -> webClient.get()
+                        .uri("/flux/example?count={count}", 100 + i)
+                        .retrieve()
+                        .bodyToFlux(ExampleDTO.class)
+                        .collectList(), 32)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(responses).hasSize(32);
+        assertThat(responses).allSatisfy(examples -> assertThat(examples.size()).isBetween(100, 131));
+        assertThat(connectionLimiter.getActiveConnections() - connections).isEqualTo(1);
+    }
+
+    /**
+     * 有 content-length 且小于 min-response-size 的不压缩, 流式响应总是压缩
+     */
+    @Test
+    void testCompressionThreshold() {
+        final String token = hmacTokenCodec.issue("test", Collections.singletonList("USER"), Duration.ofMinutes(5));
+        // 默认的 connector 会自动解压并去掉 Content-Encoding
+        final WebTestClient client = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+        client.get()
+                .uri("/flux/example?count=1000")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip");
+        client.get()
+                .uri("/cache/stats")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING);
+    }
+
+    /**
+     * 连接上第一个 stream 到来时发一次 SETTINGS 和连接窗口的 WINDOW_UPDATE, 之后的 stream 不再发
+     */
+    @Test
+    void testSettingsSentOncePerConnection() {
+        final NettyServerProperties.Http2 properties = new NettyServerProperties.Http2();
+        properties.setMaxConcurrentStreams(100);
+        final Http2SettingsUpdater updater = new Http2SettingsUpdater(properties);
+        final EmbeddedChannel parent = new EmbeddedChannel();
+
+        updater.accept(stream(parent));
+        updater.accept(stream(parent));
+
+        final Http2SettingsFrame settings = parent.readOutbound();
+        assertThat(settings.settings().maxConcurrentStreams()).isEqualTo(100L);
+        assertThat(settings.settings().initialWindowSize()).isEqualTo(properties.getInitialWindowSize());
+        final Http2WindowUpdateFrame windowUpdate = parent.readOutbound();
+        assertThat(windowUpdate.windowSizeIncrement()).isEqualTo(properties.getConnectionWindowSize() - 65535);
+        assertThat((Object) parent.readOutbound()).isNull();
+
+        // http/1.1 连接的父 channel 是 server channel, 什么都不做
+        final EmbeddedChannel server = new EmbeddedChannel();
+        final EmbeddedChannel http1 = new EmbeddedChannel(server, server.id(), true, false);
+        updater.accept(Connection.from(http1));
+        assertThat((Object) http1.readOutbound()).isNull();
+        assertThat((Object) server.readOutbound()).isNull();
+    }
+
+    private static Connection stream(Channel parent) {
+        final Http2StreamChannel stream = mock(Http2StreamChannel.class);
+        when(stream.parent()).thenReturn(parent);
+        final Connection connection = mock(Connection.class);
+        when(connection.channel()).thenReturn(stream);
+        return connection;
+    }
+
+}
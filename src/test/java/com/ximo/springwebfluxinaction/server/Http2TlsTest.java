@@ -0,0 +1,51 @@
+package com.ximo.springwebfluxinaction.server;
+
+import com.ximo.springwebfluxinaction.client.WebClientFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * h2 需要 alpn, jdk 8 上 netty 和 jetty 都不支持, 只在 jdk21 profile 下运行
+ *
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"webflux.netty.http2.self-signed=true", "webflux.client.http2.enabled=true",
+                "webflux.client.http2.trust-all=true"})
+class Http2TlsTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClientFactory webClientFactory;
+
+    @BeforeAll
+    static void assumeAlpn() {
+        assumeTrue(ClassUtils.isPresent("org.eclipse.jetty.alpn.java.client.JDK9ClientALPNProcessor",
+                Http2TlsTest.class.getClassLoader()), "no alpn on this jdk");
+    }
+
+    @Test
+    void testSelfSignedH2() {
+        final String result = webClientFactory.create("https://localhost:" + port)
+                .get()
+                .uri("/example")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(10));
+
+        assertThat(result).isEqualTo("hello webflux router function");
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.ximo.springwebfluxinaction.server;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class NettyServerConfigTest {
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @Test
+    void testRunOnNetty() {
+        assertThat(context.getWebServer()).isInstanceOf(NettyWebServer.class);
+    }
+
+    @Test
+    void testGuardFailsOnServletStack() {
+        // 当前 classpath 没有 servlet 栈
+        ReactiveStackGuard.check(className -> ClassUtils.isPresent(className, getClass().getClassLoader()));
+
+        assertThatThrownBy(() -> ReactiveStackGuard.check("org.apache.catalina.startup.Tomcat"::equals))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+}
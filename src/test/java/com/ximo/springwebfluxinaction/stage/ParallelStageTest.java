@@ -0,0 +1,123 @@
+package com.ximo.springwebfluxinaction.stage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class ParallelStageTest {
+
+    private final Scheduler scheduler = Schedulers.newParallel("stage-test", 4);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    /**
+     * 元素耗时不均匀, 各 rail 完成的先后是乱的, 输出仍然按输入顺序
+     */
+    @Test
+    void testOrdered() {
+        final ParallelStage<Integer, Integer> stage = stage(i -> {
+            spin(i % 7 == 0 ? 20_000 : 0);
+            return i;
+        });
+
+        final List<Integer> expected = IntStream.range(0, 5000).boxed().collect(Collectors.toList());
+        StepVerifier.create(stage.apply(Flux.range(0, 5000), true).collectList())
+                .expectNext(expected)
+                .verifyComplete();
+    }
+
+    @Test
+    void testUnorderedUsesAllRails() {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final ParallelStage<Integer, Integer> stage = stage(i -> {
+            threads.add(Thread.currentThread().getName());
+            spin(1_000);
+            return i;
+        });
+
+        StepVerifier.create(stage.apply(Flux.range(0, 5000), false).collect(Collectors.toSet()))
+                .assertNext(result -> assertEquals(IntStream.range(0, 5000).boxed().collect(Collectors.toSet()),
+                        new HashSet<>(result)))
+                .verifyComplete();
+        assertEquals(4, threads.size(), threads.toString());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("stage-test")), threads.toString());
+    }
+
+    /**
+     * 便宜的转换用最大批, 贵的用最小批
+     */
+    @Test
+    void testBatchSizeAdaptsToCost() {
+        final ParallelStage<Integer, Integer> cheap = stage(Function.identity());
+        assertEquals(16, cheap.batchSize());
+        StepVerifier.create(cheap.apply(Flux.range(0, 100_000), true).then())
+                .verifyComplete();
+        assertEquals(1024, cheap.batchSize());
+
+        final ParallelStage<Integer, Integer> expensive = stage(i -> {
+            spin(200_000);
+            return i;
+        });
+        StepVerifier.create(expensive.apply(Flux.range(0, 200), false).then())
+                .verifyComplete();
+        assertEquals(16, expensive.batchSize());
+    }
+
+    @Test
+    void testErrorAndCancel() {
+        final ParallelStage<Integer, Integer> stage = stage(i -> {
+            if (i == 3000) {
+                throw new IllegalStateException("bad element");
+            }
+            return i;
+        });
+
+        // 出错那一批之前的元素按顺序发出, 之后的批不发
+        final int[] next = new int[1];
+        StepVerifier.create(stage.apply(Flux.range(0, 5000), true))
+                .thenConsumeWhile(i -> i < 3000, i -> assertEquals(next[0]++, i))
+                .expectErrorMessage("bad element")
+                .verify(Duration.ofSeconds(5));
+        // 无限的源, 取到需要的就取消
+        StepVerifier.create(stage.apply(Flux.range(0, Integer.MAX_VALUE), true).take(10))
+                .expectNext(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)
+                .verifyComplete();
+    }
+
+    private ParallelStage<Integer, Integer> stage(Function<Integer, Integer> transform) {
+        return new ParallelStage<>(transform, scheduler, 4, 16, 1024, Duration.ofMillis(1));
+    }
+
+    /**
+     * 模拟 cpu 计算, parallel 线程上不能 sleep
+     */
+    private static void spin(long nanos) {
+        final long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            // busy
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.ximo.springwebfluxinaction.startup;
+
+import com.ximo.springwebfluxinaction.security.HmacTokenCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.validation.Validator;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+@ActiveProfiles("fast-startup")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FastStartupTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private HmacTokenCodec hmacTokenCodec;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    void testEndpointsServed() {
+        final String token = hmacTokenCodec.issue("test", Collections.singletonList("USER"), Duration.ofMinutes(5));
+        webTestClient.get().uri("/flux/example?count=3")
+                .headers(headers -> headers.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/example").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/actuator/health").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/actuator/prometheus").exchange().expectStatus().isOk();
+        // info 端点的自动配置不在列表里
+        webTestClient.get().uri("/actuator/info").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void testMinimalAutoConfigurationAndLazyBeans() {
+        assertThat(context.getBeanNamesForType(TaskExecutionAutoConfiguration.class)).isEmpty();
+        assertThat(context.containsBean("applicationTaskExecutor")).isFalse();
+
+        // 请求主路径上的在启动时创建, 管理接口第一次用到时才创建
+        assertThat(context.getBeanFactory().containsSingleton("fluxController")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("httpHandler")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("webHandler")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("requestMappingHandlerMapping")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("routerFunctionMapping")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("requestMappingHandlerAdapter")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("serverCodecConfigurer")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("helloWebfluxRouterFunction")).isTrue();
+        assertThat(context.getBeanNamesForType(SecurityWebFilterChain.class))
+                .isNotEmpty()
+                .allSatisfy(name -> assertThat(context.getBeanFactory().containsSingleton(name)).isTrue());
+        // 不创建 hibernate validator, 它的 adapter 对任何类型都返回 true
+        assertThat(context.getBean("webFluxValidator", Validator.class).supports(Object.class)).isFalse();
+        assertThat(context.getBeanFactory().getBeanDefinition("webClientPoolController").isLazyInit()).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("webClientPoolController")).isFalse();
+    }
+
+}
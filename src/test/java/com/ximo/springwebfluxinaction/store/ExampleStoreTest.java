@@ -0,0 +1,132 @@
+package com.ximo.springwebfluxinaction.store;
+
+import com.ximo.springwebfluxinaction.domain.ExampleDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author xikl
+ * @date 2026/10/17
+ */
+class ExampleStoreTest {
+
+    @Test
+    void testPutGetAndOverwrite() {
+        final ExampleStore store = new ExampleStore("test", 1, 1);
+        store.putAll(Arrays.asList(new ExampleDTO(1, "name1"), new ExampleDTO(-5, null), new ExampleDTO(7, "名字")));
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.get(1)).isEqualTo(new ExampleDTO(1, "name1"));
+        assertThat(store.get(-5)).isEqualTo(new ExampleDTO(-5, null));
+        assertThat(store.get(7)).isEqualTo(new ExampleDTO(7, "名字"));
+        assertThat(store.get(2)).isNull();
+
+        store.put(new ExampleDTO(1, "renamed"));
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.get(1)).isEqualTo(new ExampleDTO(1, "renamed"));
+        assertThat(store.getGarbageBytes()).isEqualTo("name1".length());
+    }
+
+    /**
+     * 乱序写入后按 id 范围扫描, 容量和哈希表都要扩几次
+     */
+    @Test
+    void testRangeScanAfterShuffledWrites() {
+        final ExampleStore store = new ExampleStore("test", 16, 16);
+        final List<Integer> ids = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        Collections.shuffle(ids, new Random(42));
+        for (int i = 0; i < ids.size(); i += 100) {
+            store.putAll(ids.subList(i, i + 100).stream()
+                    .map(id -> new ExampleDTO(id, "name" + id))
+                    .collect(Collectors.toList()));
+        }
+
+        StepVerifier.create(store.findAll().map(ExampleDTO::getId))
+                .expectNextSequence(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()))
+                .verifyComplete();
+        StepVerifier.create(store.findAfter(4999, 3))
+                .expectNext(new ExampleDTO(5000, "name5000"), new ExampleDTO(5001, "name5001"),
+                        new ExampleDTO(5002, "name5002"))
+                .verifyComplete();
+        StepVerifier.create(store.findRange(9990, 20_000).count())
+                .expectNext(10L)
+                .verifyComplete();
+        StepVerifier.create(store.findAfter(Integer.MAX_VALUE, 10))
+                .verifyComplete();
+    }
+
+    /**
+     * 快照去掉被覆盖的 name, 加载后可以继续写, 写入不影响文件
+     */
+    @Test
+    void testSnapshotRoundTrip(@TempDir Path dir) throws Exception {
+        final Path file = dir.resolve("examples.store");
+        final ExampleStore store = new ExampleStore("test", 4, 16);
+        for (int id = 100; id > 0; id--) {
+            store.put(new ExampleDTO(id, "name" + id));
+        }
+        store.put(new ExampleDTO(50, null));
+        store.put(new ExampleDTO(60, "renamed"));
+        store.snapshot(file);
+
+        final ExampleStore loaded = ExampleStore.load("test", file);
+        assertThat(loaded.size()).isEqualTo(100);
+        assertThat(loaded.getGarbageBytes()).isZero();
+        assertThat(loaded.findAll().collectList().block()).isEqualTo(store.findAll().collectList().block());
+        assertThat(loaded.get(60)).isEqualTo(new ExampleDTO(60, "renamed"));
+
+        loaded.putAll(Arrays.asList(new ExampleDTO(0, "name0"), new ExampleDTO(1, "changed")));
+        assertThat(loaded.size()).isEqualTo(101);
+        assertThat(loaded.get(1)).isEqualTo(new ExampleDTO(1, "changed"));
+        assertThat(ExampleStore.load("test", file).get(1)).isEqualTo(new ExampleDTO(1, "name1"));
+    }
+
+    /**
+     * 一边写一边读, 读到的只能是完整写入的数据
+     */
+    @Test
+    void testReadsDuringWrites() throws Exception {
+        final ExampleStore store = new ExampleStore("test", 1, 1);
+        final AtomicInteger written = new AtomicInteger();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        final Thread reader = new Thread(() -> {
+            final Random random = new Random();
+            while (written.get() < 100_000) {
+                final int bound = written.get();
+                if (bound == 0) {
+                    continue;
+                }
+                final int id = random.nextInt(bound);
+                final ExampleDTO example = store.get(id);
+                if (example == null || !example.getName().equals("name" + id)) {
+                    errors.add(id + " -> " + example);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 100_000; i += 500) {
+            final int from = i;
+            store.putAll(IntStream.range(from, from + 500)
+                    .mapToObj(id -> new ExampleDTO(id, "name" + id))
+                    .collect(Collectors.toList()));
+            written.set(from + 500);
+        }
+        reader.join();
+
+        assertThat(errors).isEmpty();
+    }
+
+}